@@ -0,0 +1,286 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import estruturas.TipoAlgoritmo;
+
+/**
+ * Benchmark do caminho completo, do arquivo de entrada ao GIF, com o tempo de cada fase
+ * 
+ * Uso: java BenchmarkPipeline [chave=valor ...]
+ *   tamanhos=256,512          lados das imagens geradas
+ *   padroes=SOLIDO,...        padrões de GeradorImagens.Padrao (padrão: todos)
+ *   algoritmos=SCANLINE,...   modos do TipoAlgoritmo (padrão: todos)
+ *   quadros=100               frames aproximados por preenchimento (define o intervalo)
+ *   aquecimento=1             execuções descartadas de cada caso
+ *   repeticoes=3              execuções medidas de cada caso
+ *   saida=pipeline.json       arquivo com os resultados
+ * 
+ * As imagens geradas são gravadas como PNG numa pasta temporária e cada execução
+ * percorre o fluxo da aplicação com frames em PNG:
+ *   leitura        construtor FloodFill(caminho), com ImageIO.read e a conversão para ARGB
+ *   preenchimento  executarFloodFill, sem o tempo gasto com frames
+ *   frames         os frames capturados durante o preenchimento (salvarFrameAtual)
+ *   png            salvarFrames, que reconstrói e grava cada frame
+ *   gif            GeradorGIF, que lê os PNG e codifica o GIF
+ * 
+ * O JSON traz, por caso, média, mediana, mínimo e máximo de cada fase em
+ * milissegundos, com as mesmas chaves em toda execução, para que dois
+ * resultados possam ser comparados automaticamente.
+ */
+public class BenchmarkPipeline {
+    private static final String[] FASES = {"leitura", "preenchimento", "frames", "png", "gif"};
+    private static final long SEMENTE = 42;
+    private static final int DELAY_GIF = 100;
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = BenchmarkPreenchimento.lerOpcoes(args);
+        int quadros = Integer.parseInt(opcoes.getOrDefault("quadros", "100"));
+        int aquecimento = Integer.parseInt(opcoes.getOrDefault("aquecimento", "1"));
+        int repeticoes = Integer.parseInt(opcoes.getOrDefault("repeticoes", "3"));
+        File saida = new File(opcoes.getOrDefault("saida", "pipeline.json"));
+        if (repeticoes < 1) {
+            throw new IllegalArgumentException("É preciso ao menos uma repetição medida: " + repeticoes);
+        }
+        
+        File pasta = Files.createTempDirectory("pipeline").toFile();
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"data\": \"").append(Instant.now()).append("\",\n");
+        json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"sistema\": \"").append(System.getProperty("os.name")).append(' ')
+                .append(System.getProperty("os.arch")).append("\",\n");
+        json.append("  \"processadores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"repeticoes\": ").append(repeticoes).append(",\n");
+        json.append("  \"casos\": [");
+        
+        System.out.printf("%-28s %10s %10s %10s %10s %10s %10s%n", "Caso (ms, mediana)",
+                FASES[0], FASES[1], FASES[2], FASES[3], FASES[4], "total");
+        boolean primeiro = true;
+        try {
+            for (String lado : opcoes.getOrDefault("tamanhos", "256,512").split(",")) {
+                int tamanho = Integer.parseInt(lado.trim());
+                for (GeradorImagens.Padrao padrao : listar(GeradorImagens.Padrao.class, opcoes.get("padroes"))) {
+                    File imagem = new File(pasta, padrao.name().toLowerCase() + "_" + tamanho + ".png");
+                    ImageIO.write(GeradorImagens.gerar(padrao, tamanho, SEMENTE), "PNG", imagem);
+                    for (TipoAlgoritmo algoritmo : listar(TipoAlgoritmo.class, opcoes.get("algoritmos"))) {
+                        Caso caso = new Caso(imagem, algoritmo, new File(pasta, "frames"),
+                                new File(pasta, "saida.gif"), quadros);
+                        for (int i = 0; i < aquecimento; i++) {
+                            caso.executar();
+                        }
+                        double[][] tempos = new double[FASES.length][repeticoes];
+                        for (int r = 0; r < repeticoes; r++) {
+                            double[] execucao = caso.executar();
+                            for (int f = 0; f < FASES.length; f++) {
+                                tempos[f][r] = execucao[f];
+                            }
+                        }
+                        json.append(primeiro ? "\n" : ",\n");
+                        primeiro = false;
+                        escreverCaso(json, padrao.name().toLowerCase() + "_" + tamanho, algoritmo, caso, tempos);
+                        imprimirCaso(padrao + " " + tamanho + " " + algoritmo, tempos);
+                    }
+                }
+            }
+        } finally {
+            apagar(pasta);
+        }
+        json.append("\n  ]\n}\n");
+        Files.write(saida.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+        System.out.println("Resultados em " + saida.getPath());
+    }
+    
+    /**
+     * Uma imagem preenchida com um algoritmo, do arquivo ao GIF
+     */
+    private static class Caso {
+        private final File imagem;
+        private final TipoAlgoritmo algoritmo;
+        private final File pastaFrames;
+        private final File gif;
+        private final int quadros;
+        private int numeroFrames;
+        private long pixels;
+        
+        Caso(File imagem, TipoAlgoritmo algoritmo, File pastaFrames, File gif, int quadros) {
+            this.imagem = imagem;
+            this.algoritmo = algoritmo;
+            this.pastaFrames = pastaFrames;
+            this.gif = gif;
+            this.quadros = quadros;
+        }
+        
+        /**
+         * @return Milissegundos de cada fase, na ordem de FASES
+         */
+        double[] executar() throws IOException {
+            double[] tempos = new double[FASES.length];
+            System.gc();
+            
+            long inicio = System.nanoTime();
+            FloodFill floodFill = new FloodFill(imagem.getPath(), algoritmo);
+            tempos[0] = milis(System.nanoTime() - inicio);
+            
+            pixels = (long) floodFill.getLargura() * floodFill.getAltura();
+            floodFill.setIntervaloPorFrame((int) Math.max(1, pixels / quadros));
+            FramesCronometrados frames = new FramesCronometrados(new JornalFrames());
+            floodFill.setArmazenamentoFrames(frames);
+            long antes = frames.getNanos();
+            inicio = System.nanoTime();
+            floodFill.executarFloodFill(0, 0, Color.RED);
+            long total = System.nanoTime() - inicio;
+            long nanosFrames = frames.getNanos() - antes;
+            tempos[1] = milis(total - nanosFrames);
+            tempos[2] = milis(nanosFrames);
+            numeroFrames = frames.getTamanho();
+            
+            // DestinoPNG e GeradorGIF anunciam o que gravaram; a saída é suprimida durante a medição
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+            try {
+                inicio = System.nanoTime();
+                floodFill.salvarFrames(pastaFrames.getPath());
+                tempos[3] = milis(System.nanoTime() - inicio);
+                
+                inicio = System.nanoTime();
+                new GeradorGIF(pastaFrames.getPath(), gif.getPath(), DELAY_GIF, true).gerarGifAnimado();
+                tempos[4] = milis(System.nanoTime() - inicio);
+            } finally {
+                System.setOut(console);
+            }
+            return tempos;
+        }
+    }
+    
+    /**
+     * Armazenamento que mede o tempo gasto em cada frame recebido
+     */
+    private static class FramesCronometrados implements ArmazenamentoFrames {
+        private final ArmazenamentoFrames armazenamento;
+        private long nanos;
+        
+        FramesCronometrados(ArmazenamentoFrames armazenamento) {
+            this.armazenamento = armazenamento;
+        }
+        
+        @Override
+        public void adicionarFrame(BufferedImage imagem) {
+            long inicio = System.nanoTime();
+            armazenamento.adicionarFrame(imagem);
+            nanos += System.nanoTime() - inicio;
+        }
+        
+        @Override
+        public void registrarAlteracao(int inicio, int fim) {
+            armazenamento.registrarAlteracao(inicio, fim);
+        }
+        
+        @Override
+        public boolean recebeAlteracoes() {
+            return armazenamento.recebeAlteracoes();
+        }
+        
+        @Override
+        public BufferedImage obterFrame(int indice) {
+            return armazenamento.obterFrame(indice);
+        }
+        
+        @Override
+        public int getTamanho() {
+            return armazenamento.getTamanho();
+        }
+        
+        long getNanos() {
+            return nanos;
+        }
+    }
+    
+    private static void escreverCaso(StringBuilder json, String imagem, TipoAlgoritmo algoritmo, Caso caso,
+                                     double[][] tempos) {
+        json.append("    {\"imagem\": \"").append(imagem).append("\", \"algoritmo\": \"").append(algoritmo)
+                .append("\", \"pixels\": ").append(caso.pixels).append(", \"frames\": ").append(caso.numeroFrames)
+                .append(", \"fases\": {");
+        double[] totais = new double[tempos[0].length];
+        for (int f = 0; f < FASES.length; f++) {
+            for (int r = 0; r < totais.length; r++) {
+                totais[r] += tempos[f][r];
+            }
+            json.append(f == 0 ? "\n" : ",\n").append("      \"").append(FASES[f]).append("\": ");
+            escreverEstatisticas(json, tempos[f]);
+        }
+        json.append(",\n      \"total\": ");
+        escreverEstatisticas(json, totais);
+        json.append("\n    }}");
+    }
+    
+    private static void escreverEstatisticas(StringBuilder json, double[] valores) {
+        double[] ordenados = valores.clone();
+        Arrays.sort(ordenados);
+        double soma = 0;
+        for (double v : ordenados) {
+            soma += v;
+        }
+        json.append(String.format(Locale.ROOT, "{\"media_ms\": %.3f, \"mediana_ms\": %.3f, \"min_ms\": %.3f, \"max_ms\": %.3f}",
+                soma / ordenados.length, mediana(ordenados), ordenados[0], ordenados[ordenados.length - 1]));
+    }
+    
+    private static void imprimirCaso(String nome, double[][] tempos) {
+        StringBuilder linha = new StringBuilder(String.format("%-28s", nome));
+        double total = 0;
+        for (double[] fase : tempos) {
+            double[] ordenados = fase.clone();
+            Arrays.sort(ordenados);
+            double valor = mediana(ordenados);
+            total += valor;
+            linha.append(String.format(" %10.1f", valor));
+        }
+        linha.append(String.format(" %10.1f", total));
+        System.out.println(linha);
+    }
+    
+    private static double mediana(double[] ordenados) {
+        int meio = ordenados.length / 2;
+        return ordenados.length % 2 == 1 ? ordenados[meio] : (ordenados[meio - 1] + ordenados[meio]) / 2;
+    }
+    
+    private static double milis(long nanos) {
+        return nanos / 1e6;
+    }
+    
+    private static <E extends Enum<E>> E[] listar(Class<E> tipo, String texto) {
+        E[] todos = tipo.getEnumConstants();
+        if (texto == null) {
+            return todos;
+        }
+        String[] nomes = texto.split(",");
+        E[] escolhidos = Arrays.copyOf(todos, nomes.length);
+        for (int i = 0; i < nomes.length; i++) {
+            escolhidos[i] = Enum.valueOf(tipo, nomes[i].trim().toUpperCase());
+        }
+        return escolhidos;
+    }
+    
+    private static void apagar(File arquivo) {
+        File[] filhos = arquivo.listFiles();
+        if (filhos != null) {
+            for (File filho : filhos) {
+                apagar(filho);
+            }
+        }
+        arquivo.delete();
+    }
+}
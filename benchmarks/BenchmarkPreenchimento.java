@@ -0,0 +1,260 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import estruturas.Fila;
+import estruturas.FilaInteiros;
+import estruturas.Lista;
+import estruturas.Pilha;
+import estruturas.PilhaInteiros;
+import estruturas.TipoAlgoritmo;
+
+/**
+ * Benchmarks do preenchimento e das estruturas de dados
+ * 
+ * Uso: java BenchmarkPreenchimento [chave=valor ...]
+ *   tamanhos=256,1024,2048    lados das imagens geradas
+ *   padroes=SOLIDO,...        padrões de GeradorImagens.Padrao (padrão: todos)
+ *   algoritmos=FILA_BFS,...   modos do TipoAlgoritmo (padrão: todos)
+ *   aquecimento=3             iterações de aquecimento, descartadas
+ *   iteracoes=5               iterações medidas
+ *   tempo=500                 duração mínima de cada iteração, em ms
+ *   estruturas=sim            mede também Fila, Pilha e Lista (sim/nao)
+ *   operacoes=1000000         elementos por execução nas estruturas
+ * 
+ * Cada caso de preenchimento parte de uma cópia nova da imagem gerada e pinta
+ * a região do pixel (0, 0); os frames vão para um destino que os descarta,
+ * então só o laço de preenchimento é medido. A vazão é informada em pixels
+ * pintados por segundo (operações por segundo nas estruturas), com o desvio
+ * padrão entre as iterações, e a alocação em bytes por pixel (ou por operação).
+ */
+public class BenchmarkPreenchimento {
+    private static final int COR_PREENCHIMENTO = 0xFFFF0000;
+    private static final long SEMENTE = 42;
+    
+    // Recebe os resultados das estruturas para que o JIT não elimine o trabalho medido
+    private static long sumidouro;
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = lerOpcoes(args);
+        Medidor medidor = new Medidor(
+                Integer.parseInt(opcoes.getOrDefault("aquecimento", "3")),
+                Integer.parseInt(opcoes.getOrDefault("iteracoes", "5")),
+                Long.parseLong(opcoes.getOrDefault("tempo", "500")));
+        
+        System.out.printf("%-36s %16s %12s %10s%n", "Caso", "Vazão (/s)", "± desvio", "B/unidade");
+        for (String lado : opcoes.getOrDefault("tamanhos", "256,1024,2048").split(",")) {
+            int tamanho = Integer.parseInt(lado.trim());
+            for (GeradorImagens.Padrao padrao : listarPadroes(opcoes.get("padroes"))) {
+                BufferedImage imagem = GeradorImagens.gerar(padrao, tamanho, SEMENTE);
+                for (TipoAlgoritmo algoritmo : listarAlgoritmos(opcoes.get("algoritmos"))) {
+                    String nome = String.format("%s %s %d", algoritmo, padrao, tamanho);
+                    imprimir(medidor.medir(nome, casoPreenchimento(imagem, algoritmo)));
+                }
+            }
+        }
+        
+        if (!"nao".equalsIgnoreCase(opcoes.getOrDefault("estruturas", "sim"))) {
+            int operacoes = Integer.parseInt(opcoes.getOrDefault("operacoes", "1000000"));
+            imprimir(medidor.medir("Fila<Integer>", casoFila(operacoes)));
+            imprimir(medidor.medir("FilaInteiros", casoFilaInteiros(operacoes)));
+            imprimir(medidor.medir("Pilha<Integer>", casoPilha(operacoes)));
+            imprimir(medidor.medir("PilhaInteiros", casoPilhaInteiros(operacoes)));
+            imprimir(medidor.medir("Lista<Integer>", casoLista(operacoes)));
+        }
+        if (sumidouro == 42) {
+            System.out.println();
+        }
+    }
+    
+    /**
+     * Lê as opções chave=valor da linha de comando
+     */
+    static Map<String, String> lerOpcoes(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual < 0) {
+                throw new IllegalArgumentException("Opção deve ser chave=valor: " + arg);
+            }
+            opcoes.put(arg.substring(0, igual), arg.substring(igual + 1));
+        }
+        return opcoes;
+    }
+    
+    private static Lista<GeradorImagens.Padrao> listarPadroes(String texto) {
+        Lista<GeradorImagens.Padrao> padroes = new Lista<>();
+        if (texto == null) {
+            for (GeradorImagens.Padrao padrao : GeradorImagens.Padrao.values()) {
+                padroes.adicionar(padrao);
+            }
+        } else {
+            for (String nome : texto.split(",")) {
+                padroes.adicionar(GeradorImagens.Padrao.valueOf(nome.trim().toUpperCase()));
+            }
+        }
+        return padroes;
+    }
+    
+    private static Lista<TipoAlgoritmo> listarAlgoritmos(String texto) {
+        Lista<TipoAlgoritmo> algoritmos = new Lista<>();
+        if (texto == null) {
+            for (TipoAlgoritmo algoritmo : TipoAlgoritmo.values()) {
+                algoritmos.adicionar(algoritmo);
+            }
+        } else {
+            for (String nome : texto.split(",")) {
+                algoritmos.adicionar(TipoAlgoritmo.valueOf(nome.trim().toUpperCase()));
+            }
+        }
+        return algoritmos;
+    }
+    
+    private static void imprimir(Medidor.Resultado resultado) {
+        System.out.printf("%-36s %16.0f %12.0f %10.2f%n", resultado.getNome(), resultado.getMedia(),
+                resultado.getDesvio(), resultado.getBytesPorUnidade());
+    }
+    
+    /**
+     * Preenche a região de (0, 0) numa cópia nova da imagem a cada execução,
+     * sem captura de frames; cada execução conta os pixels da região
+     */
+    static Medidor.Caso casoPreenchimento(BufferedImage imagem, TipoAlgoritmo algoritmo) {
+        Color cor = new Color(COR_PREENCHIMENTO, true);
+        long pintados = contarRegiao(imagem);
+        return new Medidor.Caso() {
+            private FloodFill floodFill;
+            
+            @Override
+            public void preparar() {
+                floodFill = new FloodFill(imagem, algoritmo);
+                floodFill.setIntervaloPorFrame(Integer.MAX_VALUE);
+                floodFill.setDestinoFrames(frame -> { });
+            }
+            
+            @Override
+            public long executar() {
+                floodFill.executarFloodFill(0, 0, cor);
+                return pintados;
+            }
+        };
+    }
+    
+    /**
+     * Número de pixels da região de (0, 0), que cada execução pinta
+     */
+    private static long contarRegiao(BufferedImage imagem) {
+        FloodFill floodFill = new FloodFill(imagem, TipoAlgoritmo.SCANLINE);
+        floodFill.setIntervaloPorFrame(Integer.MAX_VALUE);
+        floodFill.setDestinoFrames(frame -> { });
+        floodFill.executarFloodFill(0, 0, new Color(COR_PREENCHIMENTO, true));
+        long total = 0;
+        for (int y = 0; y < floodFill.getAltura(); y++) {
+            for (int x = 0; x < floodFill.getLargura(); x++) {
+                if (floodFill.getCorPixel(x, y).getRGB() == COR_PREENCHIMENTO) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+    
+    private static Medidor.Caso casoFila(int operacoes) {
+        return new CasoEstrutura() {
+            @Override
+            public long executar() {
+                Fila<Integer> fila = new Fila<>();
+                for (int i = 0; i < operacoes; i++) {
+                    fila.enfileirar(i);
+                }
+                long soma = 0;
+                while (!fila.estaVazia()) {
+                    soma += fila.desenfileirar();
+                }
+                sumidouro += soma;
+                return 2L * operacoes;
+            }
+        };
+    }
+    
+    private static Medidor.Caso casoFilaInteiros(int operacoes) {
+        return new CasoEstrutura() {
+            @Override
+            public long executar() {
+                FilaInteiros fila = new FilaInteiros();
+                for (int i = 0; i < operacoes; i++) {
+                    fila.enfileirar(i);
+                }
+                long soma = 0;
+                while (!fila.estaVazia()) {
+                    soma += fila.desenfileirar();
+                }
+                sumidouro += soma;
+                return 2L * operacoes;
+            }
+        };
+    }
+    
+    private static Medidor.Caso casoPilha(int operacoes) {
+        return new CasoEstrutura() {
+            @Override
+            public long executar() {
+                Pilha<Integer> pilha = new Pilha<>();
+                for (int i = 0; i < operacoes; i++) {
+                    pilha.empilhar(i);
+                }
+                long soma = 0;
+                while (!pilha.estaVazia()) {
+                    soma += pilha.desempilhar();
+                }
+                sumidouro += soma;
+                return 2L * operacoes;
+            }
+        };
+    }
+    
+    private static Medidor.Caso casoPilhaInteiros(int operacoes) {
+        return new CasoEstrutura() {
+            @Override
+            public long executar() {
+                PilhaInteiros pilha = new PilhaInteiros();
+                for (int i = 0; i < operacoes; i++) {
+                    pilha.empilhar(i);
+                }
+                long soma = 0;
+                while (!pilha.estaVazia()) {
+                    soma += pilha.desempilhar();
+                }
+                sumidouro += soma;
+                return 2L * operacoes;
+            }
+        };
+    }
+    
+    private static Medidor.Caso casoLista(int operacoes) {
+        return new CasoEstrutura() {
+            @Override
+            public long executar() {
+                Lista<Integer> lista = new Lista<>();
+                for (int i = 0; i < operacoes; i++) {
+                    lista.adicionar(i);
+                }
+                long soma = 0;
+                for (int i = 0; i < lista.getTamanho(); i++) {
+                    soma += lista.obter(i);
+                }
+                sumidouro += soma;
+                return 2L * operacoes;
+            }
+        };
+    }
+    
+    /**
+     * Casos das estruturas não têm preparação: cada execução cria a sua
+     */
+    private abstract static class CasoEstrutura implements Medidor.Caso {
+        @Override
+        public void preparar() {
+        }
+    }
+}
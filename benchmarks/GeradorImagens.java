@@ -0,0 +1,142 @@
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+import estruturas.PilhaInteiros;
+
+/**
+ * Gera as imagens usadas nos benchmarks, sempre iguais para o mesmo padrão,
+ * tamanho e semente
+ * 
+ * Em todos os padrões o pixel (0, 0) pertence à região a preencher (branca),
+ * e o preenchimento a partir dele é o caso medido.
+ */
+public class GeradorImagens {
+    public static final int BRANCO = 0xFFFFFFFF;
+    public static final int PRETO = 0xFF000000;
+    
+    /**
+     * Padrões de imagem, do mais favorável ao mais difícil para o preenchimento
+     */
+    public enum Padrao {
+        /** Imagem inteira de uma cor: sequências do tamanho da linha */
+        SOLIDO,
+        /** Quadrados pretos 2x2 alternados; a região branca os contorna em sequências curtas */
+        XADREZ,
+        /** Corredor de 1 pixel em espiral até o centro: a região é um único caminho longo */
+        ESPIRAL,
+        /** Labirinto perfeito com corredores de 1 pixel (busca em profundidade aleatória) */
+        LABIRINTO,
+        /** Pixels pretos aleatórios (40%): regiões de forma irregular */
+        RUIDO
+    }
+    
+    public static BufferedImage gerar(Padrao padrao, int tamanho, long semente) {
+        BufferedImage imagem = new BufferedImage(tamanho, tamanho, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ImagemARGB.pixels(imagem);
+        switch (padrao) {
+            case SOLIDO:
+                Arrays.fill(pixels, BRANCO);
+                break;
+            case XADREZ:
+                xadrez(pixels, tamanho);
+                break;
+            case ESPIRAL:
+                espiral(pixels, tamanho);
+                break;
+            case LABIRINTO:
+                labirinto(pixels, tamanho, new Random(semente));
+                break;
+            default:
+                ruido(pixels, tamanho, new Random(semente));
+        }
+        return imagem;
+    }
+    
+    private static void xadrez(int[] pixels, int tamanho) {
+        for (int y = 0; y < tamanho; y++) {
+            for (int x = 0; x < tamanho; x++) {
+                int celulaX = x >> 1;
+                int celulaY = y >> 1;
+                boolean preto = (celulaX & 1) == 1 && (celulaY & 1) == 1;
+                pixels[y * tamanho + x] = preto ? PRETO : BRANCO;
+            }
+        }
+    }
+    
+    /**
+     * Abre o corredor andando para a frente enquanto a posição seguinte está
+     * fechada e a posterior a ela não foi aberta, e virando à direita quando não
+     */
+    private static void espiral(int[] pixels, int tamanho) {
+        Arrays.fill(pixels, PRETO);
+        int[] dx = {1, 0, -1, 0};
+        int[] dy = {0, 1, 0, -1};
+        int x = 0;
+        int y = 0;
+        int direcao = 0;
+        pixels[0] = BRANCO;
+        int voltasSemAvancar = 0;
+        while (voltasSemAvancar < 2) {
+            int nx = x + dx[direcao];
+            int ny = y + dy[direcao];
+            if (fechado(pixels, tamanho, nx, ny) && !aberto(pixels, tamanho, nx + dx[direcao], ny + dy[direcao])) {
+                x = nx;
+                y = ny;
+                pixels[y * tamanho + x] = BRANCO;
+                voltasSemAvancar = 0;
+            } else {
+                direcao = (direcao + 1) & 3;
+                voltasSemAvancar++;
+            }
+        }
+    }
+    
+    private static boolean fechado(int[] pixels, int tamanho, int x, int y) {
+        return x >= 0 && y >= 0 && x < tamanho && y < tamanho && pixels[y * tamanho + x] == PRETO;
+    }
+    
+    private static boolean aberto(int[] pixels, int tamanho, int x, int y) {
+        return x >= 0 && y >= 0 && x < tamanho && y < tamanho && pixels[y * tamanho + x] == BRANCO;
+    }
+    
+    /**
+     * Células nas coordenadas pares; a busca em profundidade abre a parede
+     * entre uma célula e um vizinho ainda não visitado escolhido ao acaso
+     */
+    private static void labirinto(int[] pixels, int tamanho, Random aleatorio) {
+        Arrays.fill(pixels, PRETO);
+        int celulas = (tamanho + 1) / 2;
+        PilhaInteiros pilha = new PilhaInteiros();
+        pixels[0] = BRANCO;
+        pilha.empilhar(0);
+        int[] vizinhos = new int[4];
+        while (!pilha.estaVazia()) {
+            int celula = pilha.topo();
+            int cx = celula % celulas;
+            int cy = celula / celulas;
+            int total = 0;
+            if (cx + 1 < celulas && pixels[cy * 2 * tamanho + (cx + 1) * 2] == PRETO) vizinhos[total++] = celula + 1;
+            if (cx > 0 && pixels[cy * 2 * tamanho + (cx - 1) * 2] == PRETO) vizinhos[total++] = celula - 1;
+            if (cy + 1 < celulas && pixels[(cy + 1) * 2 * tamanho + cx * 2] == PRETO) vizinhos[total++] = celula + celulas;
+            if (cy > 0 && pixels[(cy - 1) * 2 * tamanho + cx * 2] == PRETO) vizinhos[total++] = celula - celulas;
+            if (total == 0) {
+                pilha.desempilhar();
+                continue;
+            }
+            int proxima = vizinhos[aleatorio.nextInt(total)];
+            int px = (proxima % celulas) * 2;
+            int py = (proxima / celulas) * 2;
+            // Abre a parede entre as duas células e a célula nova
+            pixels[(py + cy * 2) / 2 * tamanho + (px + cx * 2) / 2] = BRANCO;
+            pixels[py * tamanho + px] = BRANCO;
+            pilha.empilhar(proxima);
+        }
+    }
+    
+    private static void ruido(int[] pixels, int tamanho, Random aleatorio) {
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = aleatorio.nextInt(100) < 40 ? PRETO : BRANCO;
+        }
+        pixels[0] = BRANCO;
+    }
+}
@@ -0,0 +1,166 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Mede um caso de benchmark: iterações de aquecimento, descartadas, e depois
+ * iterações medidas, cada uma repetindo o caso até passar do tempo mínimo
+ * 
+ * Só o tempo de executar() entra na medição; preparar() roda fora dela, antes
+ * de cada execução. A alocação é lida dos contadores por thread da JVM
+ * (com.sun.management.ThreadMXBean), somados em todas as threads vivas, para
+ * incluir as threads do ForkJoinPool do preenchimento paralelo.
+ */
+public class Medidor {
+    private final int aquecimentos;
+    private final int iteracoes;
+    private final long tempoMinimoNanos;
+    private final com.sun.management.ThreadMXBean threads;
+    private final long custoLeituraAlocacao;
+    
+    public Medidor(int aquecimentos, int iteracoes, long tempoMinimoMillis) {
+        if (iteracoes < 1) {
+            throw new IllegalArgumentException("É preciso ao menos uma iteração medida: " + iteracoes);
+        }
+        this.aquecimentos = aquecimentos;
+        this.iteracoes = iteracoes;
+        this.tempoMinimoNanos = tempoMinimoMillis * 1_000_000L;
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            this.threads = (com.sun.management.ThreadMXBean) bean;
+            this.threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.threads = null;
+        }
+        this.custoLeituraAlocacao = calibrarLeituraAlocacao();
+    }
+    
+    /**
+     * Um caso medido
+     */
+    public interface Caso {
+        /**
+         * Prepara a próxima execução (fora da medição)
+         */
+        void preparar() throws Exception;
+        
+        /**
+         * Executa o caso uma vez
+         * @return Unidades processadas (pixels, operações) para calcular a vazão
+         */
+        long executar() throws Exception;
+    }
+    
+    public Resultado medir(String nome, Caso caso) throws Exception {
+        for (int i = 0; i < aquecimentos; i++) {
+            iteracao(caso);
+        }
+        double[] vazoes = new double[iteracoes];
+        long unidadesTotais = 0;
+        long bytesTotais = 0;
+        for (int i = 0; i < iteracoes; i++) {
+            long[] medida = iteracao(caso);
+            vazoes[i] = medida[0] * 1e9 / medida[1];
+            unidadesTotais += medida[0];
+            bytesTotais += medida[2];
+        }
+        double bytesPorUnidade = threads == null ? Double.NaN : (double) bytesTotais / unidadesTotais;
+        return new Resultado(nome, vazoes, bytesPorUnidade);
+    }
+    
+    /**
+     * Repete o caso até o tempo mínimo
+     * @return Unidades, nanossegundos e bytes alocados da iteração
+     */
+    private long[] iteracao(Caso caso) throws Exception {
+        System.gc();
+        long unidades = 0;
+        long nanos = 0;
+        long bytes = 0;
+        do {
+            caso.preparar();
+            long alocadoAntes = alocado();
+            long inicio = System.nanoTime();
+            unidades += caso.executar();
+            nanos += System.nanoTime() - inicio;
+            bytes += Math.max(0, alocado() - alocadoAntes - custoLeituraAlocacao);
+        } while (nanos < tempoMinimoNanos);
+        return new long[] {unidades, Math.max(nanos, 1), bytes};
+    }
+    
+    /**
+     * Bytes alocados até agora por todas as threads vivas
+     */
+    private long alocado() {
+        if (threads == null) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+    
+    /**
+     * A própria leitura dos contadores aloca (os arrays de ids e de valores);
+     * esse custo é medido uma vez e descontado de cada execução
+     */
+    private long calibrarLeituraAlocacao() {
+        long menor = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long antes = alocado();
+            menor = Math.min(menor, alocado() - antes);
+        }
+        return menor;
+    }
+    
+    /**
+     * Resultado de um caso: vazão de cada iteração medida e bytes alocados por unidade
+     */
+    public static class Resultado {
+        private final String nome;
+        private final double[] vazoes;
+        private final double bytesPorUnidade;
+        
+        Resultado(String nome, double[] vazoes, double bytesPorUnidade) {
+            this.nome = nome;
+            this.vazoes = vazoes;
+            this.bytesPorUnidade = bytesPorUnidade;
+        }
+        
+        public String getNome() {
+            return nome;
+        }
+        
+        /**
+         * Vazão média, em unidades por segundo
+         */
+        public double getMedia() {
+            double soma = 0;
+            for (double v : vazoes) {
+                soma += v;
+            }
+            return soma / vazoes.length;
+        }
+        
+        /**
+         * Desvio padrão amostral da vazão entre as iterações
+         */
+        public double getDesvio() {
+            if (vazoes.length < 2) {
+                return 0;
+            }
+            double media = getMedia();
+            double soma = 0;
+            for (double v : vazoes) {
+                soma += (v - media) * (v - media);
+            }
+            return Math.sqrt(soma / (vazoes.length - 1));
+        }
+        
+        public double getBytesPorUnidade() {
+            return bytesPorUnidade;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.Map;
+import estruturas.TipoAlgoritmo;
+
+/**
+ * Verifica que o preenchimento continua dentro do orçamento de alocação
+ * 
+ * Uso: java VerificacaoAlocacao [tamanho=512]
+ * 
+ * Mede os bytes alocados por pixel pintado durante executarFloodFill, sem
+ * captura de frames, em cada modo do TipoAlgoritmo e em imagens geradas com
+ * regiões grandes (sólido, espiral e labirinto). O custo fixo do conjunto de
+ * visitados e o crescimento dos arrays da fila e da pilha ficam abaixo do
+ * orçamento; um objeto por vizinho (Ponto, Elemento, Color) passa de 16 bytes
+ * por vizinho e estoura qualquer um deles. Termina com código 1 se algum caso
+ * passar do orçamento, para ser usado como verificação antes de integrar mudanças.
+ */
+public class VerificacaoAlocacao {
+    private static final long SEMENTE = 42;
+    private static final GeradorImagens.Padrao[] PADROES = {
+        GeradorImagens.Padrao.SOLIDO, GeradorImagens.Padrao.ESPIRAL, GeradorImagens.Padrao.LABIRINTO
+    };
+    
+    /**
+     * Bytes por pixel pintado permitidos em cada algoritmo
+     * A pilha do DFS pode chegar ao tamanho da região (4 bytes por pixel, em um
+     * array que dobra de tamanho), por isso o orçamento dela é maior; o paralelo
+     * aloca a lista de blocos a cada rodada, e um corredor longo que cruza muitos
+     * blocos (espiral) exige muitas rodadas
+     */
+    private static final Map<TipoAlgoritmo, Double> ORCAMENTOS = new EnumMap<>(TipoAlgoritmo.class);
+    static {
+        ORCAMENTOS.put(TipoAlgoritmo.FILA_BFS, 8.0);
+        ORCAMENTOS.put(TipoAlgoritmo.PILHA_DFS, 24.0);
+        ORCAMENTOS.put(TipoAlgoritmo.SCANLINE, 4.0);
+        ORCAMENTOS.put(TipoAlgoritmo.PARALELO, 8.0);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = BenchmarkPreenchimento.lerOpcoes(args);
+        int tamanho = Integer.parseInt(opcoes.getOrDefault("tamanho", "512"));
+        
+        // Sem tempo mínimo: cada iteração é uma única execução, depois do aquecimento
+        Medidor medidor = new Medidor(3, 3, 0);
+        System.out.printf("%-28s %12s %12s%n", "Caso", "B/pixel", "Orçamento");
+        int acima = 0;
+        for (GeradorImagens.Padrao padrao : PADROES) {
+            BufferedImage imagem = GeradorImagens.gerar(padrao, tamanho, SEMENTE);
+            for (TipoAlgoritmo algoritmo : TipoAlgoritmo.values()) {
+                String nome = String.format("%s %s %d", algoritmo, padrao, tamanho);
+                Medidor.Resultado resultado = medidor.medir(nome,
+                        BenchmarkPreenchimento.casoPreenchimento(imagem, algoritmo));
+                double bytesPorPixel = resultado.getBytesPorUnidade();
+                if (Double.isNaN(bytesPorPixel)) {
+                    System.err.println("A JVM não informa a alocação por thread; verificação impossível");
+                    System.exit(2);
+                }
+                double orcamento = ORCAMENTOS.get(algoritmo);
+                boolean dentro = bytesPorPixel <= orcamento;
+                if (!dentro) {
+                    acima++;
+                }
+                System.out.printf("%-28s %12.2f %12.2f%s%n", nome, bytesPorPixel, orcamento,
+                        dentro ? "" : "  ACIMA DO ORÇAMENTO");
+            }
+        }
+        
+        if (acima > 0) {
+            System.out.println(acima + " caso(s) acima do orçamento de alocação");
+            System.exit(1);
+        }
+        System.out.println("Todos os casos dentro do orçamento de alocação");
+    }
+}
@@ -10,18 +10,23 @@ if not exist classes mkdir classes
 
 REM Compilar todos os arquivos Java
 echo Compilando arquivos Java...
-javac -d classes src\*.java src\estruturas\*.java
+javac -d classes src\*.java src\estruturas\*.java src\comparacao\*.java src\eventos\*.java
 
 REM Verificar se a compilação foi bem-sucedida
 if %errorlevel% equ 0 (
     echo Compilacao bem-sucedida!
+    
+    REM Comparador vetorial (opcional: requer o modulo jdk.incubator.vector, JDK 16+)
+    set OPCOES_JAVA=
+    javac --add-modules jdk.incubator.vector -cp classes -d classes src\comparacao\vetorial\*.java 2>nul
+    if not errorlevel 1 set OPCOES_JAVA=--add-modules jdk.incubator.vector
     echo.
     echo === EXECUTANDO APLICACAO ===
     echo.
     
     REM Executar a aplicação
     cd classes
-    java Main
+    call java %%OPCOES_JAVA%% Main
     cd ..
 ) else (
     echo Erro na compilacao!
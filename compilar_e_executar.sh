@@ -9,18 +9,25 @@ mkdir -p classes
 
 # Compilar todos os arquivos Java
 echo "Compilando arquivos Java..."
-javac -d classes src/*.java src/estruturas/*.java
+javac -d classes src/*.java src/estruturas/*.java src/comparacao/*.java src/eventos/*.java
 
 # Verificar se a compilação foi bem-sucedida
 if [ $? -eq 0 ]; then
     echo "Compilação bem-sucedida!"
+    
+    # Comparador vetorial (opcional: requer o módulo jdk.incubator.vector, JDK 16+)
+    OPCOES_JAVA=""
+    if javac --add-modules jdk.incubator.vector -cp classes -d classes src/comparacao/vetorial/*.java 2>/dev/null; then
+        OPCOES_JAVA="--add-modules jdk.incubator.vector"
+        echo "Comparador vetorial disponível."
+    fi
     echo
     echo "=== EXECUTANDO APLICAÇÃO ==="
     echo
     
     # Executar a aplicação
     cd classes
-    java Main
+    java $OPCOES_JAVA Main
     cd ..
 else
     echo "Erro na compilação!"
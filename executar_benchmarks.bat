@@ -0,0 +1,43 @@
+@echo off
+setlocal
+
+REM Script para compilar e executar os benchmarks do Flood Fill no Windows
+REM Os argumentos sao repassados ao BenchmarkPreenchimento (ex.: tamanhos=512 iteracoes=10)
+REM Com "pipeline" como primeiro argumento, executa o BenchmarkPipeline (ex.: pipeline saida=antes.json)
+REM Com "alocacao", executa a VerificacaoAlocacao, que termina com erro se o orcamento for excedido
+
+set CLASSE=BenchmarkPreenchimento
+set ARGUMENTOS=%*
+if /i "%~1"=="pipeline" (
+    set CLASSE=BenchmarkPipeline
+    set ARGUMENTOS=%ARGUMENTOS:*pipeline=%
+)
+if /i "%~1"=="alocacao" (
+    set CLASSE=VerificacaoAlocacao
+    set ARGUMENTOS=%ARGUMENTOS:*alocacao=%
+)
+
+echo === COMPILANDO BENCHMARKS ===
+
+if not exist classes mkdir classes
+
+javac -d classes src\*.java src\estruturas\*.java src\comparacao\*.java src\eventos\*.java benchmarks\*.java
+
+if %errorlevel% equ 0 (
+    REM Comparador vetorial (opcional: requer o modulo jdk.incubator.vector, JDK 16+)
+    set OPCOES_JAVA=
+    javac --add-modules jdk.incubator.vector -cp classes -d classes src\comparacao\vetorial\*.java 2>nul
+    if not errorlevel 1 set OPCOES_JAVA=--add-modules jdk.incubator.vector
+    echo.
+    echo === EXECUTANDO BENCHMARKS ===
+    echo.
+    
+    call java %%OPCOES_JAVA%% -cp classes %CLASSE% %ARGUMENTOS%
+    if errorlevel 1 exit /b 1
+) else (
+    echo Erro na compilacao!
+    pause
+    exit /b 1
+)
+
+pause
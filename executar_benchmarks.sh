@@ -0,0 +1,40 @@
+#!/bin/bash
+
+# Script para compilar e executar os benchmarks do Flood Fill
+# Os argumentos são repassados ao BenchmarkPreenchimento (ex.: tamanhos=512 iteracoes=10)
+# Com "pipeline" como primeiro argumento, executa o BenchmarkPipeline (ex.: pipeline saida=antes.json)
+# Com "alocacao", executa a VerificacaoAlocacao, que termina com erro se o orçamento for excedido
+
+CLASSE=BenchmarkPreenchimento
+case "$1" in
+    pipeline)
+        CLASSE=BenchmarkPipeline
+        shift
+        ;;
+    alocacao)
+        CLASSE=VerificacaoAlocacao
+        shift
+        ;;
+esac
+
+echo "=== COMPILANDO BENCHMARKS ==="
+
+mkdir -p classes
+
+javac -d classes src/*.java src/estruturas/*.java src/comparacao/*.java src/eventos/*.java benchmarks/*.java
+
+if [ $? -eq 0 ]; then
+    # Comparador vetorial (opcional: requer o módulo jdk.incubator.vector, JDK 16+)
+    OPCOES_JAVA=""
+    if javac --add-modules jdk.incubator.vector -cp classes -d classes src/comparacao/vetorial/*.java 2>/dev/null; then
+        OPCOES_JAVA="--add-modules jdk.incubator.vector"
+    fi
+    echo
+    echo "=== EXECUTANDO BENCHMARKS ==="
+    echo
+    
+    java $OPCOES_JAVA -cp classes $CLASSE "$@"
+else
+    echo "Erro na compilação!"
+    exit 1
+fi
@@ -0,0 +1,23 @@
+import java.awt.image.BufferedImage;
+
+/**
+ * Destino de frames que guarda os frames capturados para uso posterior
+ */
+public interface ArmazenamentoFrames extends DestinoFrames {
+    
+    /**
+     * Registra o estado atual da imagem como um novo frame
+     * A imagem continua sendo alterada depois da chamada, então a
+     * implementação deve guardar o que precisar antes de retornar
+     */
+    @Override
+    void adicionarFrame(BufferedImage imagem);
+    
+    /**
+     * Retorna o frame de índice informado
+     * A imagem retornada não deve ser alterada por quem a recebe
+     */
+    BufferedImage obterFrame(int indice);
+    
+    int getTamanho();
+}
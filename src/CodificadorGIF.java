@@ -0,0 +1,367 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.imageio.stream.ImageOutputStream;
+import estruturas.MapaInteiros;
+
+/**
+ * Codificador de GIF independente do ImageIO
+ * 
+ * Gera os blocos do formato GIF89a (cabeçalho, frames e final) como bytes.
+ * Cada frame é codificado de forma independente (paleta local, quantização e
+ * compressão LZW), o que permite codificar vários frames em paralelo e depois
+ * escrevê-los em ordem (ver EscritorGIFParalelo).
+ */
+public class CodificadorGIF {
+    private static final int MAXIMO_CODIGOS = 4096;
+    private static final int BITS_MAXIMOS = 12;
+    
+    private CodificadorGIF() {}
+    
+    /**
+     * Escreve o cabeçalho, o descritor da tela lógica e a extensão de repetição (NETSCAPE2.0)
+     */
+    public static void escreverCabecalho(ImageOutputStream saida, int largura, int altura, boolean loopInfinito) throws IOException {
+        escreverCabecalho(saida, largura, altura, loopInfinito, null);
+    }
+    
+    /**
+     * Escreve o cabeçalho com a paleta informada como tabela global de cores
+     * (ou sem tabela global, se a paleta for null)
+     */
+    public static void escreverCabecalho(ImageOutputStream saida, int largura, int altura, boolean loopInfinito,
+                                         PaletaGIF paletaGlobal) throws IOException {
+        saida.write(new byte[]{'G', 'I', 'F', '8', '9', 'a'});
+        escreverInt16(saida, largura);
+        escreverInt16(saida, altura);
+        if (paletaGlobal == null) {
+            saida.write(0x70); // sem tabela global, resolução de cor de 8 bits
+        } else {
+            saida.write(0x80 | 0x70 | (paletaGlobal.getBits() - 1));
+        }
+        saida.write(0);    // cor de fundo
+        saida.write(0);    // proporção dos pixels
+        if (paletaGlobal != null) {
+            saida.write(tabelaDeCores(paletaGlobal.getCores(), paletaGlobal.getBits()));
+        }
+        
+        saida.write(new byte[]{0x21, (byte) 0xFF, 0x0B});
+        saida.write(new byte[]{'N', 'E', 'T', 'S', 'C', 'A', 'P', 'E', '2', '.', '0'});
+        int loop = loopInfinito ? 0 : 1;
+        saida.write(new byte[]{0x03, 0x01, (byte) (loop & 0xFF), (byte) ((loop >> 8) & 0xFF), 0x00});
+    }
+    
+    /**
+     * Escreve o terminador do arquivo GIF
+     */
+    public static void escreverFim(ImageOutputStream saida) throws IOException {
+        saida.write(0x3B);
+    }
+    
+    /**
+     * Codifica um frame: extensão de controle gráfico, descritor da imagem,
+     * paleta local e dados LZW
+     * 
+     * @param pixels Pixels ARGB do frame (y * largura + x)
+     * @param esquerda Posição horizontal do frame na tela lógica
+     * @param topo Posição vertical do frame na tela lógica
+     * @param largura Largura do frame
+     * @param altura Altura do frame
+     * @param delayCentesimos Delay do frame em centésimos de segundo
+     */
+    public static byte[] codificarQuadro(int[] pixels, int esquerda, int topo, int largura, int altura, int delayCentesimos) {
+        return codificarQuadro(pixels, esquerda, topo, largura, altura, delayCentesimos, null);
+    }
+    
+    /**
+     * Codifica um frame usando a tabela global de cores, sem paleta local
+     * nem quantização: cada pixel é convertido pela consulta da paleta
+     * (ou com paleta local própria, se paletaGlobal for null)
+     */
+    public static byte[] codificarQuadro(int[] pixels, int esquerda, int topo, int largura, int altura, int delayCentesimos,
+                                         PaletaGIF paletaGlobal) {
+        int total = largura * altura;
+        byte[] indices = new byte[total];
+        int[] paleta = null;
+        int bitsPaleta;
+        if (paletaGlobal != null) {
+            paletaGlobal.mapear(pixels, 0, total, indices, 0);
+            bitsPaleta = paletaGlobal.getBits();
+        } else {
+            paleta = criarPaleta(pixels, total, indices);
+            bitsPaleta = 1;
+            while ((1 << bitsPaleta) < paleta.length) {
+                bitsPaleta++;
+            }
+        }
+        
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(total / 2 + 1024);
+        
+        // Extensão de controle gráfico: descarte "none", sem transparência
+        saida.write(0x21);
+        saida.write(0xF9);
+        saida.write(0x04);
+        saida.write(0x04);
+        escreverInt16(saida, delayCentesimos);
+        saida.write(0x00);
+        saida.write(0x00);
+        
+        // Descritor da imagem, com paleta local quando não há tabela global
+        saida.write(0x2C);
+        escreverInt16(saida, esquerda);
+        escreverInt16(saida, topo);
+        escreverInt16(saida, largura);
+        escreverInt16(saida, altura);
+        if (paleta != null) {
+            saida.write(0x80 | (bitsPaleta - 1));
+            saida.write(tabelaDeCores(paleta, bitsPaleta), 0, 3 << bitsPaleta);
+        } else {
+            saida.write(0x00);
+        }
+        
+        comprimirLZW(indices, total, Math.max(2, bitsPaleta), saida);
+        return saida.toByteArray();
+    }
+    
+    /**
+     * Tabela de cores do GIF: 2^bits entradas RGB, completadas com preto
+     */
+    static byte[] tabelaDeCores(int[] cores, int bits) {
+        byte[] tabela = new byte[3 << bits];
+        for (int i = 0; i < cores.length; i++) {
+            tabela[3 * i] = (byte) (cores[i] >> 16);
+            tabela[3 * i + 1] = (byte) (cores[i] >> 8);
+            tabela[3 * i + 2] = (byte) cores[i];
+        }
+        return tabela;
+    }
+    
+    /**
+     * Monta a paleta do frame e preenche os índices de cada pixel
+     * Até 256 cores a paleta é exata; acima disso as cores são reduzidas por corte mediano
+     */
+    static int[] criarPaleta(int[] pixels, int total, byte[] indices) {
+        MapaInteiros mapa = new MapaInteiros(512);
+        int[] cores = new int[256];
+        int numeroCores = 0;
+        for (int i = 0; i < total; i++) {
+            int rgb = pixels[i] & 0xFFFFFF;
+            int indice = mapa.obter(rgb);
+            if (indice < 0) {
+                if (numeroCores == 256) {
+                    return quantizar(pixels, total, indices);
+                }
+                indice = numeroCores;
+                cores[numeroCores++] = rgb;
+                mapa.colocar(rgb, indice);
+            }
+            indices[i] = (byte) indice;
+        }
+        return Arrays.copyOf(cores, Math.max(numeroCores, 1));
+    }
+    
+    /**
+     * Reduz as cores do frame para 256 com o algoritmo de corte mediano
+     * sobre um histograma de 15 bits (5 bits por canal)
+     */
+    static int[] quantizar(int[] pixels, int total, byte[] indices) {
+        int[] histograma = new int[1 << 15];
+        for (int i = 0; i < total; i++) {
+            histograma[reduzir(pixels[i])]++;
+        }
+        int[] paleta = CorteMediano.criarPaleta(histograma, 256);
+        
+        // Cor mais próxima da paleta para cada cor reduzida, calculada sob demanda
+        int[] mapa = new int[1 << 15];
+        Arrays.fill(mapa, -1);
+        for (int i = 0; i < total; i++) {
+            int reduzida = reduzir(pixels[i]);
+            int indice = mapa[reduzida];
+            if (indice < 0) {
+                indice = maisProxima(paleta, expandir(reduzida));
+                mapa[reduzida] = indice;
+            }
+            indices[i] = (byte) indice;
+        }
+        return paleta;
+    }
+    
+    static int reduzir(int argb) {
+        return ((argb >> 9) & 0x7C00) | ((argb >> 6) & 0x03E0) | ((argb >> 3) & 0x001F);
+    }
+    
+    static int expandir(int reduzida) {
+        int r = (reduzida >> 10) & 0x1F;
+        int g = (reduzida >> 5) & 0x1F;
+        int b = reduzida & 0x1F;
+        return ((r << 3 | r >> 2) << 16) | ((g << 3 | g >> 2) << 8) | (b << 3 | b >> 2);
+    }
+    
+    static int maisProxima(int[] paleta, int rgb) {
+        int r = (rgb >> 16) & 0xFF, g = (rgb >> 8) & 0xFF, b = rgb & 0xFF;
+        int melhor = 0;
+        int menorDistancia = Integer.MAX_VALUE;
+        for (int i = 0; i < paleta.length; i++) {
+            int dr = ((paleta[i] >> 16) & 0xFF) - r;
+            int dg = ((paleta[i] >> 8) & 0xFF) - g;
+            int db = (paleta[i] & 0xFF) - b;
+            int distancia = dr * dr + dg * dg + db * db;
+            if (distancia < menorDistancia) {
+                menorDistancia = distancia;
+                melhor = i;
+            }
+        }
+        return melhor;
+    }
+    
+    /**
+     * Comprime os índices com LZW de tamanho de código variável, como exige o GIF,
+     * e escreve o resultado em sub-blocos de até 255 bytes
+     */
+    static void comprimirLZW(byte[] indices, int total, int bitsMinimos, ByteArrayOutputStream saida) {
+        saida.write(bitsMinimos);
+        new CompressorLZW(bitsMinimos, saida).comprimir(indices, total);
+    }
+    
+    private static void escreverInt16(ByteArrayOutputStream saida, int valor) {
+        saida.write(valor & 0xFF);
+        saida.write((valor >> 8) & 0xFF);
+    }
+    
+    private static void escreverInt16(ImageOutputStream saida, int valor) throws IOException {
+        saida.write(valor & 0xFF);
+        saida.write((valor >> 8) & 0xFF);
+    }
+    
+    /**
+     * Compressor LZW do GIF, seguindo o esquema clássico do compress:
+     * o tamanho do código cresce quando o próximo código livre não cabe mais
+     * e o dicionário recomeça (código de limpar) ao chegar em 4096 códigos
+     */
+    private static class CompressorLZW {
+        private static final int CAPACIDADE = 8192;
+        
+        private final int bitsIniciais;
+        private final int codigoLimpar;
+        private final int codigoFim;
+        private final int[] chaves = new int[CAPACIDADE];
+        private final int[] codigos = new int[CAPACIDADE];
+        private final EscritorBits bits;
+        private int tamanhoCodigo;
+        private int maiorCodigo;
+        private int proximoCodigo;
+        private boolean limpou;
+        
+        CompressorLZW(int bitsMinimos, ByteArrayOutputStream saida) {
+            this.bitsIniciais = bitsMinimos + 1;
+            this.codigoLimpar = 1 << bitsMinimos;
+            this.codigoFim = codigoLimpar + 1;
+            this.bits = new EscritorBits(saida);
+            this.tamanhoCodigo = bitsIniciais;
+            this.maiorCodigo = (1 << tamanhoCodigo) - 1;
+            this.proximoCodigo = codigoLimpar + 2;
+            Arrays.fill(chaves, -1);
+        }
+        
+        void comprimir(byte[] indices, int total) {
+            emitir(codigoLimpar);
+            
+            if (total > 0) {
+                int prefixo = indices[0] & 0xFF;
+                for (int i = 1; i < total; i++) {
+                    int simbolo = indices[i] & 0xFF;
+                    // Dicionário: chave (prefixo << 8 | símbolo) -> código, em endereçamento aberto
+                    int chave = (prefixo << 8) | simbolo;
+                    int posicao = (chave * 0x9E3779B1) >>> 19;
+                    while (chaves[posicao] != -1 && chaves[posicao] != chave) {
+                        posicao = (posicao + 1) & (CAPACIDADE - 1);
+                    }
+                    if (chaves[posicao] == chave) {
+                        prefixo = codigos[posicao];
+                        continue;
+                    }
+                    
+                    emitir(prefixo);
+                    prefixo = simbolo;
+                    if (proximoCodigo < MAXIMO_CODIGOS) {
+                        chaves[posicao] = chave;
+                        codigos[posicao] = proximoCodigo++;
+                    } else {
+                        Arrays.fill(chaves, -1);
+                        proximoCodigo = codigoLimpar + 2;
+                        limpou = true;
+                        emitir(codigoLimpar);
+                    }
+                }
+                emitir(prefixo);
+            }
+            
+            emitir(codigoFim);
+            bits.finalizar();
+        }
+        
+        private void emitir(int codigo) {
+            bits.escrever(codigo, tamanhoCodigo);
+            if (proximoCodigo > maiorCodigo || limpou) {
+                if (limpou) {
+                    tamanhoCodigo = bitsIniciais;
+                    limpou = false;
+                } else {
+                    tamanhoCodigo++;
+                }
+                maiorCodigo = tamanhoCodigo == BITS_MAXIMOS ? MAXIMO_CODIGOS : (1 << tamanhoCodigo) - 1;
+            }
+        }
+    }
+    
+    /**
+     * Junta códigos de tamanho variável em bytes (bit menos significativo primeiro)
+     * e os escreve em sub-blocos de até 255 bytes
+     */
+    private static class EscritorBits {
+        private final ByteArrayOutputStream saida;
+        private final byte[] bloco = new byte[255];
+        private int tamanhoBloco;
+        private int acumulador;
+        private int bitsAcumulados;
+        
+        EscritorBits(ByteArrayOutputStream saida) {
+            this.saida = saida;
+        }
+        
+        void escrever(int codigo, int tamanho) {
+            acumulador |= codigo << bitsAcumulados;
+            bitsAcumulados += tamanho;
+            while (bitsAcumulados >= 8) {
+                adicionarByte(acumulador & 0xFF);
+                acumulador >>>= 8;
+                bitsAcumulados -= 8;
+            }
+        }
+        
+        void finalizar() {
+            if (bitsAcumulados > 0) {
+                adicionarByte(acumulador & 0xFF);
+                acumulador = 0;
+                bitsAcumulados = 0;
+            }
+            if (tamanhoBloco > 0) {
+                gravarBloco();
+            }
+            saida.write(0x00);
+        }
+        
+        private void adicionarByte(int valor) {
+            bloco[tamanhoBloco++] = (byte) valor;
+            if (tamanhoBloco == 255) {
+                gravarBloco();
+            }
+        }
+        
+        private void gravarBloco() {
+            saida.write(tamanhoBloco);
+            saida.write(bloco, 0, tamanhoBloco);
+            tamanhoBloco = 0;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+
+/**
+ * Quantização de cores pelo algoritmo de corte mediano (median cut)
+ * 
+ * Trabalha sobre um histograma de cores reduzidas a 15 bits (5 bits por canal).
+ * Começa com uma caixa contendo todas as cores e divide repetidamente a caixa
+ * com mais pixels, no canal de maior amplitude, na mediana ponderada pelo número
+ * de pixels. Cada caixa final vira uma cor da paleta (a média ponderada das cores).
+ */
+public class CorteMediano {
+    
+    private CorteMediano() {}
+    
+    /**
+     * @param histograma Contagem de pixels para cada cor de 15 bits (0bRRRRRGGGGGBBBBB)
+     * @param maximoCores Número máximo de cores da paleta
+     * @return Paleta em RGB de 24 bits
+     */
+    public static int[] criarPaleta(int[] histograma, int maximoCores) {
+        int numeroCores = 0;
+        for (int contagem : histograma) {
+            if (contagem > 0) numeroCores++;
+        }
+        int[] cores = new int[numeroCores];
+        int[] contagens = new int[numeroCores];
+        int n = 0;
+        for (int cor = 0; cor < histograma.length; cor++) {
+            if (histograma[cor] > 0) {
+                cores[n] = cor;
+                contagens[n] = histograma[cor];
+                n++;
+            }
+        }
+        
+        // Caixas como intervalos [inicio, fim) dos arrays de cores
+        int[] inicios = new int[maximoCores];
+        int[] fins = new int[maximoCores];
+        long[] pixelsNaCaixa = new long[maximoCores];
+        int caixas = 1;
+        inicios[0] = 0;
+        fins[0] = numeroCores;
+        pixelsNaCaixa[0] = soma(contagens, 0, numeroCores);
+        
+        long[] ordenacao = new long[numeroCores];
+        while (caixas < maximoCores) {
+            // Escolhe a caixa divisível com mais pixels
+            int escolhida = -1;
+            for (int c = 0; c < caixas; c++) {
+                if (fins[c] - inicios[c] > 1 && (escolhida < 0 || pixelsNaCaixa[c] > pixelsNaCaixa[escolhida])) {
+                    escolhida = c;
+                }
+            }
+            if (escolhida < 0) {
+                break;
+            }
+            
+            int inicio = inicios[escolhida];
+            int fim = fins[escolhida];
+            int deslocamento = canalDeMaiorAmplitude(cores, inicio, fim);
+            
+            // Ordena a caixa pelo canal escolhido (canal, contagem e cor num único long)
+            for (int i = inicio; i < fim; i++) {
+                long canal = (cores[i] >> deslocamento) & 0x1F;
+                ordenacao[i] = (canal << 46) | ((long) contagens[i] << 15) | cores[i];
+            }
+            Arrays.sort(ordenacao, inicio, fim);
+            for (int i = inicio; i < fim; i++) {
+                cores[i] = (int) (ordenacao[i] & 0x7FFF);
+                contagens[i] = (int) ((ordenacao[i] >>> 15) & 0x7FFFFFFFL);
+            }
+            
+            // Divide na mediana ponderada, deixando ao menos uma cor de cada lado
+            long metade = pixelsNaCaixa[escolhida] / 2;
+            long acumulado = 0;
+            int corte = inicio + 1;
+            for (int i = inicio; i < fim - 1; i++) {
+                acumulado += contagens[i];
+                corte = i + 1;
+                if (acumulado >= metade) {
+                    break;
+                }
+            }
+            
+            inicios[caixas] = corte;
+            fins[caixas] = fim;
+            pixelsNaCaixa[caixas] = soma(contagens, corte, fim);
+            fins[escolhida] = corte;
+            pixelsNaCaixa[escolhida] -= pixelsNaCaixa[caixas];
+            caixas++;
+        }
+        
+        int[] paleta = new int[Math.max(caixas, 1)];
+        for (int c = 0; c < caixas; c++) {
+            paleta[c] = media(cores, contagens, inicios[c], fins[c]);
+        }
+        return paleta;
+    }
+    
+    /**
+     * Retorna o deslocamento (10 = vermelho, 5 = verde, 0 = azul) do canal com maior amplitude
+     */
+    private static int canalDeMaiorAmplitude(int[] cores, int inicio, int fim) {
+        int melhorDeslocamento = 0;
+        int melhorAmplitude = -1;
+        for (int deslocamento = 10; deslocamento >= 0; deslocamento -= 5) {
+            int minimo = 31, maximo = 0;
+            for (int i = inicio; i < fim; i++) {
+                int valor = (cores[i] >> deslocamento) & 0x1F;
+                if (valor < minimo) minimo = valor;
+                if (valor > maximo) maximo = valor;
+            }
+            if (maximo - minimo > melhorAmplitude) {
+                melhorAmplitude = maximo - minimo;
+                melhorDeslocamento = deslocamento;
+            }
+        }
+        return melhorDeslocamento;
+    }
+    
+    private static int media(int[] cores, int[] contagens, int inicio, int fim) {
+        long r = 0, g = 0, b = 0, total = 0;
+        for (int i = inicio; i < fim; i++) {
+            int rgb = CodificadorGIF.expandir(cores[i]);
+            long peso = contagens[i];
+            r += ((rgb >> 16) & 0xFF) * peso;
+            g += ((rgb >> 8) & 0xFF) * peso;
+            b += (rgb & 0xFF) * peso;
+            total += peso;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        return (int) ((r / total) << 16 | (g / total) << 8 | (b / total));
+    }
+    
+    private static long soma(int[] contagens, int inicio, int fim) {
+        long total = 0;
+        for (int i = inicio; i < fim; i++) {
+            total += contagens[i];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,38 @@
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Destino para onde o flood fill envia cada frame capturado
+ * (armazenamento em memória, GIF, arquivos PNG, ...)
+ */
+public interface DestinoFrames {
+    
+    /**
+     * Recebe o estado atual da imagem como um novo frame
+     * A imagem continua sendo alterada depois da chamada, então a
+     * implementação deve usar ou copiar o que precisar antes de retornar
+     */
+    void adicionarFrame(BufferedImage imagem) throws IOException;
+    
+    /**
+     * Avisa que os pixels de [inicio, fim) foram pintados desde o último frame
+     * Destinos que guardam só as alterações (JornalFrames) usam o aviso em vez de
+     * comparar a imagem inteira a cada frame; os demais o ignoram
+     */
+    default void registrarAlteracao(int inicio, int fim) {
+    }
+    
+    /**
+     * Indica se o destino usa os avisos de registrarAlteracao; sem isso, o
+     * FloodFill nem chega a enviá-los
+     */
+    default boolean recebeAlteracoes() {
+        return false;
+    }
+    
+    /**
+     * Finaliza o destino depois do último frame (fecha arquivos, etc.)
+     */
+    default void fechar() throws IOException {
+    }
+}
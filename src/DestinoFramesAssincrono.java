@@ -0,0 +1,146 @@
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import estruturas.PoliticaFilaFrames;
+
+/**
+ * Destino que codifica os frames em outra thread, em paralelo com o flood fill
+ * 
+ * Cada frame recebido é copiado para um buffer e colocado numa fila limitada;
+ * uma thread consumidora retira os frames da fila e os repassa ao destino real
+ * (GIF, PNG, ...). Quando a fila enche, a política escolhida decide se o
+ * preenchimento espera ou se o frame pendente mais antigo é descartado.
+ * Os buffers são reaproveitados, então no máximo capacidade + 2 cópias da
+ * imagem existem ao mesmo tempo.
+ */
+public class DestinoFramesAssincrono implements DestinoFrames {
+    private static final int[] FIM = new int[0];
+    
+    private final DestinoFrames destino;
+    private final PoliticaFilaFrames politica;
+    private final BlockingQueue<int[]> pendentes;
+    private final BlockingQueue<int[]> livres;
+    private final Thread consumidor;
+    private volatile Throwable erro;
+    private volatile int largura;
+    private volatile int altura;
+    private int framesDescartados;
+    private boolean fechado;
+    
+    /**
+     * @param destino Destino real que receberá os frames na thread consumidora
+     * @param capacidade Número máximo de frames aguardando codificação
+     * @param politica O que fazer quando a fila estiver cheia
+     */
+    public DestinoFramesAssincrono(DestinoFrames destino, int capacidade, PoliticaFilaFrames politica) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("A capacidade da fila deve ser positiva");
+        }
+        this.destino = destino;
+        this.politica = politica;
+        this.pendentes = new ArrayBlockingQueue<>(capacidade);
+        this.livres = new ArrayBlockingQueue<>(capacidade + 2);
+        this.framesDescartados = 0;
+        this.consumidor = new Thread(this::consumir, "codificador-frames");
+        this.consumidor.setDaemon(true);
+        this.consumidor.start();
+    }
+    
+    @Override
+    public void adicionarFrame(BufferedImage imagem) throws IOException {
+        verificarErro();
+        if (fechado) {
+            throw new IllegalStateException("Destino de frames já foi fechado");
+        }
+        
+        RasterARGB origem = RasterARGB.de(imagem);
+        largura = imagem.getWidth();
+        altura = imagem.getHeight();
+        
+        int[] copia = livres.poll();
+        if (copia == null || copia.length != origem.getTamanho()) {
+            copia = new int[origem.getTamanho()];
+        }
+        origem.ler(0, copia, 0, copia.length);
+        
+        try {
+            if (politica == PoliticaFilaFrames.BLOQUEAR) {
+                pendentes.put(copia);
+            } else {
+                while (!pendentes.offer(copia)) {
+                    int[] descartado = pendentes.poll();
+                    if (descartado != null) {
+                        livres.offer(descartado);
+                        framesDescartados++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrompido ao enfileirar frame", e);
+        }
+    }
+    
+    /**
+     * Espera a codificação de todos os frames pendentes e fecha o destino real
+     * O destino real é fechado mesmo depois de um erro na codificação (liberando
+     * o arquivo), e o erro é lançado em seguida
+     */
+    @Override
+    public void fechar() throws IOException {
+        if (!fechado) {
+            fechado = true;
+            try {
+                pendentes.put(FIM);
+                consumidor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrompido ao aguardar a codificação dos frames", e);
+            }
+        }
+        try {
+            destino.fechar();
+        } finally {
+            verificarErro();
+        }
+    }
+    
+    public int getFramesDescartados() {
+        return framesDescartados;
+    }
+    
+    /**
+     * Laço da thread consumidora
+     */
+    private void consumir() {
+        while (true) {
+            int[] pixels;
+            try {
+                pixels = pendentes.take();
+            } catch (InterruptedException e) {
+                erro = e;
+                return;
+            }
+            if (pixels == FIM) {
+                return;
+            }
+            // Depois de um erro, a fila continua sendo esvaziada para não travar o preenchimento
+            if (erro == null) {
+                try {
+                    destino.adicionarFrame(ImagemARGB.criar(pixels, largura, altura));
+                } catch (Throwable e) {
+                    erro = e;
+                }
+            }
+            livres.offer(pixels);
+        }
+    }
+    
+    private void verificarErro() throws IOException {
+        Throwable e = erro;
+        if (e != null) {
+            throw new IOException("Erro na codificação dos frames: " + e.getMessage(), e);
+        }
+    }
+}
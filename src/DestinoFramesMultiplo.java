@@ -0,0 +1,55 @@
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Repassa cada frame para vários destinos, na ordem em que foram informados
+ * Ex.: gerar o GIF e, opcionalmente, também salvar os frames em PNG
+ */
+public class DestinoFramesMultiplo implements DestinoFrames {
+    private DestinoFrames[] destinos;
+    
+    public DestinoFramesMultiplo(DestinoFrames... destinos) {
+        this.destinos = destinos;
+    }
+    
+    @Override
+    public void adicionarFrame(BufferedImage imagem) throws IOException {
+        for (DestinoFrames destino : destinos) {
+            destino.adicionarFrame(imagem);
+        }
+    }
+    
+    @Override
+    public void registrarAlteracao(int inicio, int fim) {
+        for (DestinoFrames destino : destinos) {
+            destino.registrarAlteracao(inicio, fim);
+        }
+    }
+    
+    @Override
+    public boolean recebeAlteracoes() {
+        for (DestinoFrames destino : destinos) {
+            if (destino.recebeAlteracoes()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public void fechar() throws IOException {
+        IOException primeiroErro = null;
+        for (DestinoFrames destino : destinos) {
+            try {
+                destino.fechar();
+            } catch (IOException e) {
+                if (primeiroErro == null) {
+                    primeiroErro = e;
+                }
+            }
+        }
+        if (primeiroErro != null) {
+            throw primeiroErro;
+        }
+    }
+}
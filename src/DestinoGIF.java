@@ -0,0 +1,140 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Destino que escreve cada frame direto num GIF animado
+ * Os frames vão da memória para o GIF sem passar por arquivos PNG intermediários,
+ * usando o GifSequenceWriter (ImageIO) ou o EscritorGIFParalelo
+ * 
+ * Com a paleta global ativada, a paleta é montada uma vez no primeiro frame
+ * (cores da imagem original mais as de preenchimento) e escrita no cabeçalho;
+ * esse modo usa sempre o codificador próprio (EscritorGIFParalelo).
+ * 
+ * Com setMetricas(), o tempo de escrita de cada quadro é somado às métricas
+ * do preenchimento (MetricasPreenchimento).
+ */
+public class DestinoGIF implements DestinoFrames {
+    private String nomeArquivo;
+    private int delay;
+    private boolean loopInfinito;
+    private boolean codificacaoParalela;
+    private boolean apenasRegiaoAlterada;
+    private int[] coresPaletaGlobal;
+    private ImageOutputStream saida;
+    private EscritorGIF writer;
+    private int numeroFrames;
+    private MetricasPreenchimento metricas;
+    private int quadrosInformados;
+    private long nanosInformados;
+    
+    /**
+     * @param nomeArquivo Nome do arquivo GIF de saída
+     * @param delay Delay entre frames em milissegundos
+     * @param loopInfinito Se true, o GIF será executado em loop infinito
+     */
+    public DestinoGIF(String nomeArquivo, int delay, boolean loopInfinito) {
+        this(nomeArquivo, delay, loopInfinito, false);
+    }
+    
+    /**
+     * @param codificacaoParalela Se true, codifica vários frames ao mesmo tempo (EscritorGIFParalelo)
+     */
+    public DestinoGIF(String nomeArquivo, int delay, boolean loopInfinito, boolean codificacaoParalela) {
+        this.nomeArquivo = nomeArquivo;
+        this.delay = delay;
+        this.loopInfinito = loopInfinito;
+        this.codificacaoParalela = codificacaoParalela;
+        this.numeroFrames = 0;
+    }
+    
+    /**
+     * Se true, cada frame após o primeiro guarda só o retângulo alterado desde o anterior
+     * Deve ser definido antes do primeiro frame
+     */
+    public void setApenasRegiaoAlterada(boolean apenasRegiaoAlterada) {
+        this.apenasRegiaoAlterada = apenasRegiaoAlterada;
+    }
+    
+    /**
+     * Ativa a paleta global fixa, montada a partir do primeiro frame e das cores informadas
+     * Deve ser definido antes do primeiro frame
+     * @param coresPreenchimento Cores que serão pintadas durante a animação (ARGB)
+     */
+    public void setPaletaGlobal(int... coresPreenchimento) {
+        this.coresPaletaGlobal = coresPreenchimento.clone();
+    }
+    
+    /**
+     * Métricas que recebem o tempo de escrita dos quadros, normalmente
+     * as do FloodFill que envia os frames (getMetricas())
+     */
+    public void setMetricas(MetricasPreenchimento metricas) {
+        this.metricas = metricas;
+    }
+    
+    @Override
+    public void adicionarFrame(BufferedImage imagem) throws IOException {
+        // O writer é criado no primeiro frame; os frames do FloodFill são sempre ARGB
+        // (RasterARGB), mesmo quando a imagem é TYPE_CUSTOM (RasterForaDoHeap)
+        if (writer == null) {
+            File arquivo = new File(nomeArquivo);
+            arquivo.delete();
+            saida = new FileImageOutputStream(arquivo);
+            if (coresPaletaGlobal != null) {
+                PaletaGIF paleta = PaletaGIF.criar(imagem, coresPaletaGlobal);
+                int threads = codificacaoParalela ? Runtime.getRuntime().availableProcessors() : 1;
+                writer = new EscritorGIFParalelo(saida, delay, loopInfinito, threads, apenasRegiaoAlterada, paleta);
+            } else if (codificacaoParalela) {
+                writer = new EscritorGIFParalelo(saida, delay, loopInfinito,
+                        Runtime.getRuntime().availableProcessors(), apenasRegiaoAlterada);
+            } else {
+                writer = new GifSequenceWriter(saida, BufferedImage.TYPE_INT_ARGB, delay, loopInfinito,
+                        apenasRegiaoAlterada);
+            }
+        }
+        writer.writeToSequence(imagem);
+        numeroFrames++;
+        informarMetricas();
+    }
+    
+    /**
+     * Repassa às métricas os quadros escritos desde a última vez; com o
+     * EscritorGIFParalelo, um quadro só conta quando chega ao arquivo
+     */
+    private void informarMetricas() {
+        if (metricas == null) {
+            return;
+        }
+        int quadros = writer.getQuadrosEscritos();
+        long nanos = writer.getNanosEscrita();
+        if (quadros > quadrosInformados) {
+            metricas.registrarQuadrosGIF(quadros - quadrosInformados, nanos - nanosInformados,
+                    writer.getMaiorNanosQuadro());
+            quadrosInformados = quadros;
+            nanosInformados = nanos;
+        }
+    }
+    
+    @Override
+    public void fechar() throws IOException {
+        if (writer != null) {
+            // O arquivo é fechado mesmo se o writer falhar ao escrever o fim do GIF
+            try {
+                writer.close();
+                informarMetricas();
+            } finally {
+                writer = null;
+                saida.close();
+            }
+            System.out.println("GIF gerado com sucesso: " + nomeArquivo);
+            System.out.println("Total de frames: " + numeroFrames);
+        }
+    }
+    
+    public int getNumeroFrames() {
+        return numeroFrames;
+    }
+}
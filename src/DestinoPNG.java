@@ -0,0 +1,55 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Destino que salva cada frame como um arquivo PNG (frame_0000.png, frame_0001.png, ...)
+ */
+public class DestinoPNG implements DestinoFrames {
+    private File pasta;
+    private int numeroFrames;
+    
+    /**
+     * Prepara a pasta de frames, removendo PNGs de execuções anteriores
+     */
+    public DestinoPNG(String pastaFrames) {
+        this.pasta = new File(pastaFrames);
+        this.numeroFrames = 0;
+        limparPasta(pasta);
+    }
+    
+    @Override
+    public void adicionarFrame(BufferedImage imagem) throws IOException {
+        String nomeArquivo = String.format("frame_%04d.png", numeroFrames);
+        ImageIO.write(imagem, "PNG", new File(pasta, nomeArquivo));
+        numeroFrames++;
+    }
+    
+    @Override
+    public void fechar() {
+        System.out.println("Salvos " + numeroFrames + " frames na pasta: " + pasta.getPath());
+    }
+    
+    public int getNumeroFrames() {
+        return numeroFrames;
+    }
+    
+    /**
+     * Limpa os arquivos PNG da pasta, criando-a se não existir
+     */
+    static void limparPasta(File pasta) {
+        if (pasta.exists()) {
+            File[] arquivos = pasta.listFiles();
+            if (arquivos != null) {
+                for (File arquivo : arquivos) {
+                    if (arquivo.getName().endsWith(".png")) {
+                        arquivo.delete();
+                    }
+                }
+            }
+        } else {
+            pasta.mkdirs();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+
+/**
+ * Escreve uma sequência de frames num GIF animado
+ */
+public interface EscritorGIF {
+    
+    void writeToSequence(RenderedImage img) throws IOException;
+    
+    /**
+     * Número de quadros já escritos no arquivo
+     */
+    int getQuadrosEscritos();
+    
+    /**
+     * Soma do tempo de cada quadro, do recebimento até a escrita no arquivo
+     */
+    long getNanosEscrita();
+    
+    long getMaiorNanosQuadro();
+    
+    /**
+     * Fecha o writer e finaliza a sequência
+     */
+    void close() throws IOException;
+}
@@ -0,0 +1,249 @@
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.stream.ImageOutputStream;
+import eventos.EventoQuadroGIF;
+
+/**
+ * Escritor de GIF animado que codifica vários frames ao mesmo tempo
+ * 
+ * Cada frame recebido é copiado e enviado a um pool de threads, onde é
+ * quantizado e comprimido com LZW pelo CodificadorGIF. Os blocos prontos são
+ * escritos no arquivo sempre na ordem dos frames. O número de frames em
+ * codificação é limitado, para que a memória não cresça quando o pool
+ * não acompanha quem envia os frames.
+ * 
+ * Opcionalmente, cada frame após o primeiro é reduzido ao retângulo que mudou
+ * em relação ao frame anterior e posicionado no descritor da imagem. Também é
+ * possível informar uma PaletaGIF fixa, escrita como tabela global de cores;
+ * nesse caso os frames não são quantizados, apenas convertidos pela paleta.
+ * 
+ * O tempo de cada quadro vai do recebimento em writeToSequence até a escrita
+ * no arquivo, na montagem em ordem; é acumulado (getQuadrosEscritos,
+ * getNanosEscrita, getMaiorNanosQuadro) e emitido como EventoQuadroGIF.
+ */
+public class EscritorGIFParalelo implements EscritorGIF {
+    private final ImageOutputStream saida;
+    private final int delayCentesimos;
+    private final boolean loopInfinito;
+    private final ExecutorService executor;
+    private final int maximoPendentes;
+    private final ArrayDeque<QuadroPendente> pendentes;
+    private final boolean apenasRegiaoAlterada;
+    private final PaletaGIF paletaGlobal;
+    private int[] anterior;
+    private int largura;
+    private int altura;
+    private boolean cabecalhoEscrito;
+    private int quadrosEscritos;
+    private long nanosEscrita;
+    private long maiorNanosQuadro;
+    
+    /**
+     * Cria um escritor que usa uma thread por processador disponível
+     * 
+     * @param saida Stream de saída para o GIF
+     * @param delayTime Delay entre frames em milissegundos
+     * @param loopContinuously Se true, o GIF será executado em loop infinito
+     */
+    public EscritorGIFParalelo(ImageOutputStream saida, int delayTime, boolean loopContinuously) {
+        this(saida, delayTime, loopContinuously, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * @param threads Número de threads de codificação
+     */
+    public EscritorGIFParalelo(ImageOutputStream saida, int delayTime, boolean loopContinuously, int threads) {
+        this(saida, delayTime, loopContinuously, threads, false);
+    }
+    
+    /**
+     * @param apenasRegiaoAlterada Se true, cada frame guarda só o retângulo alterado desde o anterior
+     */
+    public EscritorGIFParalelo(ImageOutputStream saida, int delayTime, boolean loopContinuously, int threads,
+                               boolean apenasRegiaoAlterada) {
+        this(saida, delayTime, loopContinuously, threads, apenasRegiaoAlterada, null);
+    }
+    
+    /**
+     * @param paletaGlobal Paleta fixa usada como tabela global de cores (ou null para paletas por frame)
+     */
+    public EscritorGIFParalelo(ImageOutputStream saida, int delayTime, boolean loopContinuously, int threads,
+                               boolean apenasRegiaoAlterada, PaletaGIF paletaGlobal) {
+        this.apenasRegiaoAlterada = apenasRegiaoAlterada;
+        this.paletaGlobal = paletaGlobal;
+        this.saida = saida;
+        this.delayCentesimos = delayTime / 10;
+        this.loopInfinito = loopContinuously;
+        this.executor = Executors.newFixedThreadPool(Math.max(threads, 1), tarefa -> {
+            Thread thread = new Thread(tarefa, "codificador-gif");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maximoPendentes = 2 * Math.max(threads, 1);
+        this.pendentes = new ArrayDeque<>();
+        this.cabecalhoEscrito = false;
+    }
+    
+    @Override
+    public void writeToSequence(RenderedImage img) throws IOException {
+        EventoQuadroGIF evento = new EventoQuadroGIF();
+        evento.begin();
+        long inicio = System.nanoTime();
+        if (!cabecalhoEscrito) {
+            largura = img.getWidth();
+            altura = img.getHeight();
+            CodificadorGIF.escreverCabecalho(saida, largura, altura, loopInfinito, paletaGlobal);
+            cabecalhoEscrito = true;
+        } else if (img.getWidth() != largura || img.getHeight() != altura) {
+            throw new IllegalArgumentException("Todos os frames devem ter o mesmo tamanho");
+        }
+        
+        int[] pixels = copiarPixels(img);
+        Rectangle regiao = new Rectangle(0, 0, largura, altura);
+        if (apenasRegiaoAlterada) {
+            if (anterior == null) {
+                anterior = pixels.clone();
+            } else {
+                regiao = ImagemARGB.regiaoAlterada(anterior, pixels, largura, altura);
+                if (regiao == null) {
+                    // Nada mudou: um pixel basta para manter o tempo do frame
+                    regiao = new Rectangle(0, 0, 1, 1);
+                } else {
+                    ImagemARGB.copiarRegiao(pixels, anterior, largura, regiao);
+                }
+            }
+        }
+        
+        Rectangle r = regiao;
+        int larguraImagem = largura;
+        int delay = delayCentesimos;
+        PaletaGIF paleta = paletaGlobal;
+        Future<byte[]> bloco = executor.submit(() -> CodificadorGIF.codificarQuadro(
+                recortar(pixels, larguraImagem, r), r.x, r.y, r.width, r.height, delay, paleta));
+        pendentes.addLast(new QuadroPendente(bloco, evento, inicio, r.width, r.height));
+        
+        // Escreve o que já ficou pronto, em ordem, e limita os frames em andamento
+        while (!pendentes.isEmpty() && (pendentes.peekFirst().bloco.isDone() || pendentes.size() > maximoPendentes)) {
+            escreverProximo();
+        }
+    }
+    
+    /**
+     * Espera a codificação dos frames restantes, escreve o final do GIF e encerra o pool
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            while (!pendentes.isEmpty()) {
+                escreverProximo();
+            }
+            if (cabecalhoEscrito) {
+                CodificadorGIF.escreverFim(saida);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private void escreverProximo() throws IOException {
+        QuadroPendente proximo = pendentes.removeFirst();
+        try {
+            saida.write(proximo.bloco.get());
+        } catch (ExecutionException e) {
+            throw new IOException("Erro ao codificar frame do GIF: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrompido ao codificar frame do GIF", e);
+        }
+        
+        long nanos = System.nanoTime() - proximo.inicio;
+        quadrosEscritos++;
+        nanosEscrita += nanos;
+        maiorNanosQuadro = Math.max(maiorNanosQuadro, nanos);
+        EventoQuadroGIF evento = proximo.evento;
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.numero = quadrosEscritos;
+            evento.largura = proximo.largura;
+            evento.altura = proximo.altura;
+            evento.commit();
+        }
+    }
+    
+    @Override
+    public int getQuadrosEscritos() {
+        return quadrosEscritos;
+    }
+    
+    /**
+     * Soma do tempo de cada quadro entre writeToSequence e a escrita no arquivo
+     * (cópia, espera na fila do pool, codificação e espera pelos quadros anteriores)
+     */
+    @Override
+    public long getNanosEscrita() {
+        return nanosEscrita;
+    }
+    
+    @Override
+    public long getMaiorNanosQuadro() {
+        return maiorNanosQuadro;
+    }
+    
+    /**
+     * Retorna os pixels do retângulo como um array compacto
+     */
+    private static int[] recortar(int[] pixels, int largura, Rectangle regiao) {
+        if (regiao.x == 0 && regiao.width == largura && regiao.y == 0 && regiao.height * largura == pixels.length) {
+            return pixels;
+        }
+        int[] recorte = new int[regiao.width * regiao.height];
+        for (int y = 0; y < regiao.height; y++) {
+            System.arraycopy(pixels, (regiao.y + y) * largura + regiao.x, recorte, y * regiao.width, regiao.width);
+        }
+        return recorte;
+    }
+    
+    /**
+     * Copia os pixels ARGB do frame, já que a imagem pode mudar depois da chamada
+     */
+    private static int[] copiarPixels(RenderedImage img) {
+        BufferedImage imagem;
+        if (img instanceof BufferedImage) {
+            imagem = (BufferedImage) img;
+        } else {
+            ColorModel modelo = img.getColorModel();
+            imagem = new BufferedImage(modelo, img.copyData(null), modelo.isAlphaPremultiplied(), null);
+        }
+        if (imagem.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return ImagemARGB.pixels(imagem).clone();
+        }
+        return imagem.getRGB(0, 0, imagem.getWidth(), imagem.getHeight(), null, 0, imagem.getWidth());
+    }
+    
+    /**
+     * Quadro enviado ao pool, aguardando a vez de ser escrito
+     */
+    private static class QuadroPendente {
+        final Future<byte[]> bloco;
+        final EventoQuadroGIF evento;
+        final long inicio;
+        final int largura;
+        final int altura;
+        
+        QuadroPendente(Future<byte[]> bloco, EventoQuadroGIF evento, long inicio, int largura, int altura) {
+            this.bloco = bloco;
+            this.evento = evento;
+            this.inicio = inicio;
+            this.largura = largura;
+            this.altura = altura;
+        }
+    }
+}
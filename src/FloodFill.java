@@ -2,47 +2,115 @@ import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import javax.imageio.ImageIO;
-import estruturas.Fila;
-import estruturas.Pilha;
+import comparacao.ComparadorLinha;
+import estruturas.ConjuntoBits;
+import estruturas.FilaInteiros;
 import estruturas.Lista;
+import estruturas.PilhaInteiros;
+import estruturas.Semente;
 import estruturas.TipoAlgoritmo;
-import estruturas.Ponto;
+import estruturas.TipoTolerancia;
+import eventos.EventoFrame;
+import eventos.EventoPreenchimento;
 
 /**
  * Classe responsável pelo algoritmo de Flood Fill com geração de frames
  */
 public class FloodFill {
     
-    private BufferedImage imagem;
+    private RasterARGB raster;
     private int largura;
     private int altura;
-    private Lista<BufferedImage> frames;
+    private DestinoFrames frames;
+    private boolean enviarAlteracoes;
+    private int numeroFrames;
     private int intervaloPorFrame;
     private int contadorOperacoes;
     private TipoAlgoritmo tipoAlgoritmo;
+    private IndiceRegioes indiceRegioes;
+    private HistoricoPreenchimento historico;
+    private final MetricasPreenchimento metricas = new MetricasPreenchimento();
+    
+    // Preenchimento em medição
+    private long inicioMedicao;
+    private int operacoesNoInicio;
+    private int framesNoInicio;
+    private long bytesFramesNoInicio;
+    private long inseridosNaMedicao;
+    private int profundidadeNaMedicao;
     
     public FloodFill(String caminhoImagem) throws IOException {
         this(caminhoImagem, TipoAlgoritmo.FILA_BFS);
     }
     
     public FloodFill(String caminhoImagem, TipoAlgoritmo tipoAlgoritmo) throws IOException {
-        this.imagem = ImageIO.read(new File(caminhoImagem));
-        this.largura = imagem.getWidth();
-        this.altura = imagem.getHeight();
-        this.frames = new Lista<>();
+        BufferedImage lida = ImageIO.read(new File(caminhoImagem));
+        if (lida == null) {
+            throw new IOException("Formato de imagem não suportado: " + caminhoImagem);
+        }
+        // Normaliza para TYPE_INT_ARGB uma única vez; o RasterHeap usa o array de pixels da imagem
+        inicializar(new RasterHeap(ImagemARGB.converter(lida)), tipoAlgoritmo);
+    }
+    
+    /**
+     * Preenche uma cópia da imagem informada, que não é alterada
+     * Permite que várias execuções compartilhem a mesma imagem já decodificada
+     */
+    public FloodFill(BufferedImage imagem, TipoAlgoritmo tipoAlgoritmo) {
+        BufferedImage copia = imagem.getType() == BufferedImage.TYPE_INT_ARGB
+                ? ImagemARGB.copiar(imagem)
+                : ImagemARGB.converter(imagem);
+        inicializar(new RasterHeap(copia), tipoAlgoritmo);
+    }
+    
+    /**
+     * Preenche o raster informado diretamente, sem cópia
+     * Com um RasterForaDoHeap, a imagem de trabalho fica fora do heap; o índice de
+     * regiões lê o raster linha a linha, mas guarda um rótulo por pixel no heap
+     * (ou no arquivo mapeado, quando vem da pasta de cache)
+     */
+    public FloodFill(RasterARGB raster, TipoAlgoritmo tipoAlgoritmo) {
+        inicializar(raster, tipoAlgoritmo);
+    }
+    
+    private void inicializar(RasterARGB raster, TipoAlgoritmo tipoAlgoritmo) {
+        this.raster = raster;
+        this.largura = raster.getLargura();
+        this.altura = raster.getAltura();
+        this.frames = null; // JornalFrames, criado só se nenhum destino for informado
+        this.numeroFrames = 0;
         this.intervaloPorFrame = 100; // padrão: salvar a cada 100 operações
         this.contadorOperacoes = 0;
         this.tipoAlgoritmo = tipoAlgoritmo;
-        
-        // Adiciona o frame inicial
-        salvarFrameAtual();
     }
     
     public void setIntervaloPorFrame(int intervalo) {
         this.intervaloPorFrame = intervalo;
     }
     
+    /**
+     * Troca o destino dos frames (por padrão, um JornalFrames em memória, criado
+     * no primeiro preenchimento se nenhum destino for informado antes)
+     * Os frames já capturados são descartados e o estado atual da imagem
+     * é enviado como frame inicial do novo destino
+     * Quem informa o destino é responsável por chamar fechar() ao final
+     */
+    public void setDestinoFrames(DestinoFrames destino) {
+        this.frames = destino;
+        this.enviarAlteracoes = destino.recebeAlteracoes();
+        this.numeroFrames = 0;
+        salvarFrameAtual();
+    }
+    
+    /**
+     * Troca a forma de armazenar os frames (por padrão, JornalFrames)
+     */
+    public void setArmazenamentoFrames(ArmazenamentoFrames armazenamento) {
+        setDestinoFrames(armazenamento);
+    }
+    
     public int getLargura() {
         return largura;
     }
@@ -59,6 +127,92 @@ public class FloodFill {
         this.tipoAlgoritmo = tipoAlgoritmo;
     }
     
+    /**
+     * Rotula todas as regiões da imagem atual (ver IndiceRegioes)
+     * A partir daí, executarFloodFill(x, y, cor) pinta a região direto pelas suas
+     * sequências, sem percorrê-la, e mantém o índice atualizado; os frames seguem
+     * a ordem das linhas, qualquer que seja o algoritmo selecionado
+     */
+    public void usarIndiceRegioes() {
+        this.indiceRegioes = IndiceRegioes.construir(raster);
+    }
+    
+    /**
+     * Como usarIndiceRegioes(), mas reaproveita o índice gravado na pasta de cache
+     * por uma execução anterior sobre a mesma imagem (mesmo conteúdo), mapeando-o
+     * em memória; se ainda não houver, o índice é construído e gravado
+     */
+    public void usarIndiceRegioes(File pastaCache) throws IOException {
+        this.indiceRegioes = IndiceRegioes.obter(raster, pastaCache);
+    }
+    
+    /**
+     * Índice de regiões em uso, ou null se não houver (ou se foi invalidado)
+     */
+    public IndiceRegioes getIndiceRegioes() {
+        return indiceRegioes;
+    }
+    
+    /**
+     * Passa a guardar os preenchimentos seguintes para desfazer e refazer
+     * (ver HistoricoPreenchimento); o histórico anterior, se houver, é descartado
+     */
+    public void usarHistorico() {
+        this.historico = new HistoricoPreenchimento(largura, altura);
+    }
+    
+    /**
+     * Como usarHistorico(), descartando os preenchimentos mais antigos quando
+     * o histórico passa de limiteBytes
+     */
+    public void usarHistorico(long limiteBytes) {
+        this.historico = new HistoricoPreenchimento(largura, altura, limiteBytes);
+    }
+    
+    /**
+     * Desfaz o último preenchimento guardado no histórico e salva um frame
+     * O índice de regiões, se houver, deixa de valer
+     * @return false se não há histórico ou nada a desfazer
+     */
+    public boolean desfazer() {
+        garantirDestinoFrames();
+        if (historico == null || !historico.desfazer(raster, enviarAlteracoes ? this::registrarAlteracao : null)) {
+            return false;
+        }
+        indiceRegioes = null;
+        salvarFrameAtual();
+        return true;
+    }
+    
+    /**
+     * Refaz o último preenchimento desfeito e salva um frame
+     * @return false se não há histórico ou nada a refazer
+     */
+    public boolean refazer() {
+        garantirDestinoFrames();
+        if (historico == null || !historico.refazer(raster, enviarAlteracoes ? this::registrarAlteracao : null)) {
+            return false;
+        }
+        indiceRegioes = null;
+        salvarFrameAtual();
+        return true;
+    }
+    
+    /**
+     * Métricas acumuladas pelos preenchimentos desta instância
+     */
+    public MetricasPreenchimento getMetricas() {
+        return metricas;
+    }
+    
+    public boolean podeDesfazer() {
+        return historico != null && historico.podeDesfazer();
+    }
+    
+    public boolean podeRefazer() {
+        return historico != null && historico.podeRefazer();
+    }
+    
     /**
      * Executa o flood fill a partir de uma coordenada com uma cor específica
      */
@@ -66,26 +220,214 @@ public class FloodFill {
         if (x < 0 || x >= largura || y < 0 || y >= altura) {
             throw new IllegalArgumentException("Coordenadas fora dos limites da imagem");
         }
+        garantirDestinoFrames();
         
-        Color corOriginal = new Color(imagem.getRGB(x, y));
+        int corOriginal = raster.get(y * largura + x);
+        int corNova = novaCor.getRGB();
         
         // Se a cor original é igual à nova cor, não há necessidade de preencher
-        if (corOriginal.equals(novaCor)) {
+        if (corOriginal == corNova) {
             return;
         }
         
-        floodFillIterativo(x, y, corOriginal, novaCor, tipoAlgoritmo);
+        EventoPreenchimento evento = iniciarMedicao();
+        String algoritmo = indiceRegioes != null ? "INDICE_REGIOES" : tipoAlgoritmo.name();
+        if (historico != null) {
+            historico.iniciar();
+        }
+        if (indiceRegioes != null) {
+            floodFillComIndice(y * largura + x, corNova);
+        } else {
+            floodFillIterativo(x, y, corOriginal, corNova, tipoAlgoritmo);
+        }
+        concluirHistorico();
+        
+        // Salva o frame final
+        salvarFrameAtual();
+        concluirMedicao(evento, algoritmo);
+    }
+    
+    /**
+     * Executa o flood fill aceitando pixels parecidos com a cor do pixel inicial
+     * Com tolerância 0 é o mesmo que executarFloodFill(x, y, novaCor), com o algoritmo
+     * selecionado; acima de 0 o preenchimento é sempre feito por linhas (scanline), com
+     * um ComparadorLinha que compara sequências inteiras de pixels de uma vez
+     * @param tolerancia Diferença máxima por canal, ou distância máxima (euclidiana)
+     */
+    public void executarFloodFill(int x, int y, Color novaCor, int tolerancia, TipoTolerancia tipo) {
+        if (tolerancia == 0) {
+            executarFloodFill(x, y, novaCor);
+            return;
+        }
+        if (x < 0 || x >= largura || y < 0 || y >= altura) {
+            throw new IllegalArgumentException("Coordenadas fora dos limites da imagem");
+        }
+        garantirDestinoFrames();
+        
+        // As regiões mudam de forma imprevisível com a tolerância: o índice deixa de valer
+        indiceRegioes = null;
+        EventoPreenchimento evento = iniciarMedicao();
+        ComparadorLinha comparador = ComparadorLinha.criar(raster.get(y * largura + x), tolerancia, tipo);
+        if (historico != null) {
+            historico.iniciar();
+        }
+        floodFillComTolerancia(x, y, new BuscaTolerancia(raster, comparador), novaCor.getRGB());
+        concluirHistorico();
         
         // Salva o frame final
         salvarFrameAtual();
+        concluirMedicao(evento, "SCANLINE_TOLERANCIA");
     }
     
     /**
-     * Implementação iterativa do flood fill usando fila (BFS) ou pilha (DFS)
+     * Preenche várias regiões numa única passada, cada uma com a cor da sua semente
+     * 
+     * Todas as sementes entram na mesma fila (BFS) desde o início e compartilham um
+     * único conjunto de visitados e a mesma sequência de frames; só um frame final é
+     * salvo. Cada semente preenche a região da cor que seu pixel tinha antes do
+     * preenchimento, e como só pixels não visitados (ainda com a cor original) são
+     * comparados, uma região recém-pintada não se mistura com a vizinha. Sementes
+     * na mesma região dividem a região: cada pixel fica com a cor da frente que
+     * chegar primeiro. Sementes cuja cor nova é a cor do pixel são ignoradas.
      */
-    private void floodFillIterativo(int x, int y, Color corOriginal, Color novaCor, TipoAlgoritmo algoritmo) {
+    public void executarFloodFill(Lista<Semente> sementes) {
+        for (Semente semente : sementes) {
+            if (semente.getX() < 0 || semente.getX() >= largura || semente.getY() < 0 || semente.getY() >= altura) {
+                throw new IllegalArgumentException("Coordenadas fora dos limites da imagem: " + semente);
+            }
+        }
+        garantirDestinoFrames();
+        
+        // Cor original e cor nova de cada semente; a fila guarda o pixel e o número da semente
+        EventoPreenchimento evento = iniciarMedicao();
+        int[] coresOriginais = new int[sementes.getTamanho()];
+        int[] coresNovas = new int[sementes.getTamanho()];
+        ConjuntoBits visitados = new ConjuntoBits(largura * altura);
+        FilaInteiros fila = new FilaInteiros();
+        FilaInteiros origens = new FilaInteiros();
+        int numero = 0;
+        for (Semente semente : sementes) {
+            int inicial = semente.getY() * largura + semente.getX();
+            coresOriginais[numero] = raster.get(inicial);
+            coresNovas[numero] = semente.getCor().getRGB();
+            if (coresOriginais[numero] != coresNovas[numero] && visitados.marcar(inicial)) {
+                fila.enfileirar(inicial);
+                origens.enfileirar(numero);
+            }
+            numero++;
+        }
+        if (fila.estaVazia()) {
+            return;
+        }
+        
+        // Sementes na mesma região a dividem entre cores: o índice deixa de valer
+        indiceRegioes = null;
+        if (historico != null) {
+            historico.iniciar();
+        }
+        while (!fila.estaVazia()) {
+            int indice = fila.desenfileirar();
+            int origem = origens.desenfileirar();
+            int corOriginal = coresOriginais[origem];
+            pintar(indice, coresNovas[origem]);
+            
+            int px = indice % largura;
+            int py = indice / largura;
+            if (px + 1 < largura) enfileirarSeNovo(fila, origens, origem, visitados, indice + 1, corOriginal);
+            if (px > 0) enfileirarSeNovo(fila, origens, origem, visitados, indice - 1, corOriginal);
+            if (py + 1 < altura) enfileirarSeNovo(fila, origens, origem, visitados, indice + largura, corOriginal);
+            if (py > 0) enfileirarSeNovo(fila, origens, origem, visitados, indice - largura, corOriginal);
+        }
+        medirEstrutura(fila.getTotalInseridos(), fila.getMaiorTamanho());
+        concluirHistorico();
+        
+        // Salva o frame final
+        salvarFrameAtual();
+        concluirMedicao(evento, "FILA_BFS_SEMENTES");
+    }
+    
+    /**
+     * Começa a medir um preenchimento: métricas e evento do Java Flight Recorder
+     */
+    private EventoPreenchimento iniciarMedicao() {
+        EventoPreenchimento evento = new EventoPreenchimento();
+        evento.begin();
+        operacoesNoInicio = contadorOperacoes;
+        framesNoInicio = metricas.getFrames();
+        bytesFramesNoInicio = metricas.getBytesFrames();
+        inseridosNaMedicao = 0;
+        profundidadeNaMedicao = 0;
+        inicioMedicao = System.nanoTime();
+        return evento;
+    }
+    
+    /**
+     * Registra o uso da fila ou pilha do algoritmo no preenchimento em medição
+     */
+    private void medirEstrutura(long inseridos, int maiorTamanho) {
+        inseridosNaMedicao += inseridos;
+        profundidadeNaMedicao = Math.max(profundidadeNaMedicao, maiorTamanho);
+    }
+    
+    private void concluirMedicao(EventoPreenchimento evento, String algoritmo) {
+        long pixelsPintados = contadorOperacoes - operacoesNoInicio;
+        metricas.registrarPreenchimento(pixelsPintados, System.nanoTime() - inicioMedicao);
+        metricas.registrarEstrutura(inseridosNaMedicao, profundidadeNaMedicao);
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.algoritmo = algoritmo;
+            evento.largura = largura;
+            evento.altura = altura;
+            evento.pixelsPintados = pixelsPintados;
+            evento.inseridos = inseridosNaMedicao;
+            evento.profundidadeMaxima = profundidadeNaMedicao;
+            evento.frames = metricas.getFrames() - framesNoInicio;
+            evento.bytesFrames = metricas.getBytesFrames() - bytesFramesNoInicio;
+            evento.commit();
+        }
+    }
+    
+    /**
+     * Guarda no histórico, se houver, o preenchimento que acabou de terminar
+     */
+    private void concluirHistorico() {
+        if (historico != null) {
+            historico.concluir(raster);
+        }
+    }
+    
+    /**
+     * Enfileira o pixel junto com o número da semente que o alcançou
+     */
+    private void enfileirarSeNovo(FilaInteiros fila, FilaInteiros origens, int origem, ConjuntoBits visitados,
+                                  int indice, int corOriginal) {
+        if (raster.get(indice) == corOriginal && visitados.marcar(indice)) {
+            fila.enfileirar(indice);
+            origens.enfileirar(origem);
+        }
+    }
+    
+    /**
+     * Pinta a região conhecida pelo índice, sequência por sequência, e atualiza o índice
+     */
+    private void floodFillComIndice(int inicial, int novaCor) {
+        int regiao = indiceRegioes.regiao(inicial);
+        for (int s = indiceRegioes.primeiraSequencia(regiao); s >= 0; s = indiceRegioes.proximaSequencia(s)) {
+            pintarSequencia(indiceRegioes.inicioSequencia(s), indiceRegioes.comprimentoSequencia(s), novaCor);
+        }
+        indiceRegioes.recolorir(regiao, novaCor);
+    }
+    
+    /**
+     * Implementação iterativa do flood fill usando fila (BFS), pilha (DFS) ou scanline
+     */
+    private void floodFillIterativo(int x, int y, int corOriginal, int novaCor, TipoAlgoritmo algoritmo) {
         if (algoritmo == TipoAlgoritmo.FILA_BFS) {
             floodFillComFila(x, y, corOriginal, novaCor);
+        } else if (algoritmo == TipoAlgoritmo.SCANLINE) {
+            floodFillScanline(x, y, corOriginal, novaCor);
+        } else if (algoritmo == TipoAlgoritmo.PARALELO) {
+            floodFillParalelo(x, y, corOriginal, novaCor);
         } else {
             floodFillComPilha(x, y, corOriginal, novaCor);
         }
@@ -94,127 +436,363 @@ public class FloodFill {
     /**
      * Implementação usando Fila (BFS - Breadth-First Search)
      * Preenche de forma mais uniforme, espalhando em todas as direções
+     * Os pontos são guardados como índices compactados (y * largura + x) e
+     * cada pixel entra na fila no máximo uma vez, graças ao conjunto de visitados
      */
-    private void floodFillComFila(int x, int y, Color corOriginal, Color novaCor) {
-        Fila<Ponto> fila = new Fila<>();
-        fila.enfileirar(new Ponto(x, y));
+    private void floodFillComFila(int x, int y, int corOriginal, int novaCor) {
+        ConjuntoBits visitados = new ConjuntoBits(largura * altura);
+        FilaInteiros fila = new FilaInteiros();
+        int inicial = y * largura + x;
+        visitados.marcar(inicial);
+        fila.enfileirar(inicial);
         
         while (!fila.estaVazia()) {
-            Ponto ponto = fila.desenfileirar();
-            int px = ponto.getX();
-            int py = ponto.getY();
+            int indice = fila.desenfileirar();
             
-            // Verifica se o ponto está dentro dos limites
-            if (px < 0 || px >= largura || py < 0 || py >= altura) {
-                continue;
-            }
+            // Só entram na fila pixels da cor original, então o pixel pode ser pintado direto
+            pintar(indice, novaCor);
             
-            // Verifica se a cor atual é a cor original
-            Color corAtual = new Color(imagem.getRGB(px, py));
-            if (!corAtual.equals(corOriginal)) {
+            int px = indice % largura;
+            int py = indice / largura;
+            
+            // Adiciona os pontos adjacentes à fila
+            // Limites, cor e visitados são verificados antes de enfileirar
+            if (px + 1 < largura) enfileirarSeNovo(fila, visitados, indice + 1, corOriginal);       // direita
+            if (px > 0) enfileirarSeNovo(fila, visitados, indice - 1, corOriginal);                 // esquerda
+            if (py + 1 < altura) enfileirarSeNovo(fila, visitados, indice + largura, corOriginal);  // baixo
+            if (py > 0) enfileirarSeNovo(fila, visitados, indice - largura, corOriginal);           // cima
+        }
+        medirEstrutura(fila.getTotalInseridos(), fila.getMaiorTamanho());
+    }
+    
+    /**
+     * Enfileira o pixel se ele tem a cor original e ainda não foi enfileirado
+     */
+    private void enfileirarSeNovo(FilaInteiros fila, ConjuntoBits visitados, int indice, int corOriginal) {
+        if (raster.get(indice) == corOriginal && visitados.marcar(indice)) {
+            fila.enfileirar(indice);
+        }
+    }
+    
+    /**
+     * Implementação usando Pilha (DFS - Depth-First Search)
+     * Preenche seguindo um caminho mais profundo antes de explorar outras áreas
+     * 
+     * A pilha guarda apenas pixels já pintados (índices y * largura + x). O topo
+     * avança para o primeiro vizinho ainda não visitado, na ordem direita, esquerda,
+     * baixo, cima, e sai da pilha quando não há mais vizinhos. Assim cada pixel é
+     * empilhado uma única vez e a ordem de pintura é a mesma de empilhar os quatro
+     * vizinhos de cada pixel pintado.
+     */
+    private void floodFillComPilha(int x, int y, int corOriginal, int novaCor) {
+        ConjuntoBits visitados = new ConjuntoBits(largura * altura);
+        PilhaInteiros pilha = new PilhaInteiros();
+        int inicial = y * largura + x;
+        visitados.marcar(inicial);
+        pintar(inicial, novaCor);
+        pilha.empilhar(inicial);
+        
+        while (!pilha.estaVazia()) {
+            int indice = pilha.topo();
+            int px = indice % largura;
+            int py = indice / largura;
+            
+            int proximo;
+            if (px + 1 < largura && podeVisitar(visitados, indice + 1, corOriginal)) {
+                proximo = indice + 1;           // direita
+            } else if (px > 0 && podeVisitar(visitados, indice - 1, corOriginal)) {
+                proximo = indice - 1;           // esquerda
+            } else if (py + 1 < altura && podeVisitar(visitados, indice + largura, corOriginal)) {
+                proximo = indice + largura;     // baixo
+            } else if (py > 0 && podeVisitar(visitados, indice - largura, corOriginal)) {
+                proximo = indice - largura;     // cima
+            } else {
+                // Todos os vizinhos já foram explorados
+                pilha.desempilhar();
                 continue;
             }
             
-            // Pinta o pixel
-            imagem.setRGB(px, py, novaCor.getRGB());
-            contadorOperacoes++;
-            
-            // Verifica se deve salvar um frame
-            if (contadorOperacoes % intervaloPorFrame == 0) {
+            visitados.marcar(proximo);
+            pintar(proximo, novaCor);
+            pilha.empilhar(proximo);
+        }
+        medirEstrutura(pilha.getTotalInseridos(), pilha.getMaiorTamanho());
+    }
+    
+    /**
+     * Verifica se o pixel tem a cor original e ainda não foi visitado
+     */
+    private boolean podeVisitar(ConjuntoBits visitados, int indice, int corOriginal) {
+        return raster.get(indice) == corOriginal && !visitados.estaMarcado(indice);
+    }
+    
+    /**
+     * Pinta um pixel e salva um frame a cada intervaloPorFrame operações
+     */
+    private void pintar(int indice, int novaCor) {
+        if (historico != null) {
+            historico.registrar(indice, raster.get(indice));
+        }
+        raster.set(indice, novaCor);
+        if (enviarAlteracoes) {
+            frames.registrarAlteracao(indice, indice + 1);
+        }
+        contadorOperacoes++;
+        
+        // Verifica se deve salvar um frame
+        if (contadorOperacoes % intervaloPorFrame == 0) {
+            salvarFrameAtual();
+        }
+    }
+    
+    /**
+     * Pinta uma sequência de pixels de uma vez, em partes que terminam exatamente
+     * onde pintar() salvaria um frame, para manter a mesma cadência de frames
+     * Todos os pixels da sequência devem ter a mesma cor
+     */
+    private void pintarSequencia(int inicio, int comprimento, int novaCor) {
+        int fim = inicio + comprimento;
+        if (historico != null) {
+            historico.registrarSequencia(inicio, fim, raster.get(inicio));
+        }
+        while (inicio < fim) {
+            int ateFrame = intervaloPorFrame - contadorOperacoes % intervaloPorFrame;
+            int parte = Math.min(ateFrame, fim - inicio);
+            raster.preencher(inicio, inicio + parte, novaCor);
+            if (enviarAlteracoes) {
+                frames.registrarAlteracao(inicio, inicio + parte);
+            }
+            inicio += parte;
+            contadorOperacoes += parte;
+            if (parte == ateFrame) {
                 salvarFrameAtual();
             }
-            
-            // Adiciona os pontos adjacentes à fila
-            fila.enfileirar(new Ponto(px + 1, py)); // direita
-            fila.enfileirar(new Ponto(px - 1, py)); // esquerda
-            fila.enfileirar(new Ponto(px, py + 1)); // baixo
-            fila.enfileirar(new Ponto(px, py - 1)); // cima
         }
     }
     
     /**
-     * Implementação usando Pilha (DFS - Depth-First Search)
-     * Preenche seguindo um caminho mais profundo antes de explorar outras áreas
+     * Implementação por linhas (Scanline)
+     * Preenche sequências horizontais inteiras e empilha apenas uma semente
+     * por sequência encontrada nas linhas de cima e de baixo
      */
-    private void floodFillComPilha(int x, int y, Color corOriginal, Color novaCor) {
-        Pilha<Ponto> pilha = new Pilha<>();
-        pilha.empilhar(new Ponto(x, y));
+    private void floodFillScanline(int x, int y, int corOriginal, int novaCor) {
+        PilhaInteiros pilha = new PilhaInteiros();
+        pilha.empilhar(y * largura + x);
         
         while (!pilha.estaVazia()) {
-            Ponto ponto = pilha.desempilhar();
-            int px = ponto.getX();
-            int py = ponto.getY();
+            int semente = pilha.desempilhar();
+            int sx = semente % largura;
+            int py = semente / largura;
             
-            // Verifica se o ponto está dentro dos limites
-            if (px < 0 || px >= largura || py < 0 || py >= altura) {
+            // A semente pode já ter sido pintada por outra sequência
+            if (raster.get(semente) != corOriginal) {
                 continue;
             }
             
-            // Verifica se a cor atual é a cor original
-            Color corAtual = new Color(imagem.getRGB(px, py));
-            if (!corAtual.equals(corOriginal)) {
+            // Estende a sequência para a esquerda e para a direita
+            int inicioLinha = py * largura;
+            int inicio = sx;
+            while (inicio > 0 && raster.get(inicioLinha + inicio - 1) == corOriginal) {
+                inicio--;
+            }
+            int fim = sx;
+            while (fim < largura - 1 && raster.get(inicioLinha + fim + 1) == corOriginal) {
+                fim++;
+            }
+            
+            // Pinta a sequência inteira (toda da cor original) de uma vez
+            pintarSequencia(inicioLinha + inicio, fim - inicio + 1, novaCor);
+            
+            // Procura novas sequências nas linhas vizinhas
+            if (py > 0) {
+                empilharSequencias(pilha, inicio, fim, py - 1, corOriginal);
+            }
+            if (py < altura - 1) {
+                empilharSequencias(pilha, inicio, fim, py + 1, corOriginal);
+            }
+        }
+        medirEstrutura(pilha.getTotalInseridos(), pilha.getMaiorTamanho());
+    }
+    
+    /**
+     * Scanline com tolerância
+     * A nova cor pode continuar dentro da tolerância, então os pixels pintados são
+     * marcados como visitados; uma sequência vai até o primeiro pixel que não
+     * corresponde ou que já foi visitado, encontrados pelo comparador e pelo
+     * conjunto de visitados palavra a palavra
+     */
+    private void floodFillComTolerancia(int x, int y, BuscaTolerancia busca, int novaCor) {
+        ConjuntoBits visitados = new ConjuntoBits(largura * altura);
+        PilhaInteiros pilha = new PilhaInteiros();
+        pilha.empilhar(y * largura + x);
+        
+        while (!pilha.estaVazia()) {
+            int semente = pilha.desempilhar();
+            if (visitados.estaMarcado(semente) || !busca.corresponde(semente)) {
                 continue;
             }
             
-            // Pinta o pixel
-            imagem.setRGB(px, py, novaCor.getRGB());
-            contadorOperacoes++;
+            // Estende a sequência [inicio, fim) para os dois lados
+            int py = semente / largura;
+            int inicioLinha = py * largura;
+            int fim = busca.proximaDiferente(semente + 1, inicioLinha + largura);
+            fim = visitados.proximoMarcado(semente + 1, fim);
+            int inicio = busca.anteriorDiferente(semente - 1, inicioLinha) + 1;
+            inicio = visitados.anteriorMarcado(semente - 1, inicio) + 1;
             
-            // Verifica se deve salvar um frame
-            if (contadorOperacoes % intervaloPorFrame == 0) {
-                salvarFrameAtual();
+            visitados.marcarIntervalo(inicio, fim);
+            for (int indice = inicio; indice < fim; indice++) {
+                pintar(indice, novaCor);
             }
             
-            // Adiciona os pontos adjacentes à pilha
-            // Ordem inversa para manter consistência visual
-            pilha.empilhar(new Ponto(px, py - 1)); // cima
-            pilha.empilhar(new Ponto(px, py + 1)); // baixo
-            pilha.empilhar(new Ponto(px - 1, py)); // esquerda
-            pilha.empilhar(new Ponto(px + 1, py)); // direita
+            // Procura novas sequências nas linhas vizinhas
+            if (py > 0) {
+                empilharSequencias(pilha, busca, visitados, inicio - largura, fim - largura);
+            }
+            if (py < altura - 1) {
+                empilharSequencias(pilha, busca, visitados, inicio + largura, fim + largura);
+            }
         }
+        medirEstrutura(pilha.getTotalInseridos(), pilha.getMaiorTamanho());
     }
     
     /**
-     * Salva um frame da imagem atual
+     * Empilha uma semente para cada sequência de pixels dentro da tolerância
+     * e ainda não visitados entre os índices inicio (inclusive) e fim (exclusive)
      */
-    private void salvarFrameAtual() {
-        BufferedImage copia = new BufferedImage(largura, altura, imagem.getType());
-        for (int x = 0; x < largura; x++) {
-            for (int y = 0; y < altura; y++) {
-                copia.setRGB(x, y, imagem.getRGB(x, y));
+    private void empilharSequencias(PilhaInteiros pilha, BuscaTolerancia busca, ConjuntoBits visitados,
+                                    int inicio, int fim) {
+        int indice = inicio;
+        while (indice < fim) {
+            indice = busca.proximaIgual(indice, fim);
+            if (indice >= fim) {
+                break;
+            }
+            if (visitados.estaMarcado(indice)) {
+                indice = visitados.proximoDesmarcado(indice, fim);
+                continue;
             }
+            pilha.empilhar(indice);
+            indice = visitados.proximoMarcado(indice, busca.proximaDiferente(indice, fim));
         }
-        frames.adicionar(copia);
     }
     
     /**
-     * Salva todos os frames como arquivos PNG na pasta frames
+     * Implementação paralela por blocos (ver PreenchimentoParalelo)
+     * Os frames são salvos ao fim de cada rodada em que ao menos
+     * intervaloPorFrame pixels foram pintados desde o último frame
      */
-    public void salvarFrames(String pastaFrames) throws IOException {
-        // Limpa a pasta de frames
-        File pasta = new File(pastaFrames);
-        if (pasta.exists()) {
-            File[] arquivos = pasta.listFiles();
-            if (arquivos != null) {
-                for (File arquivo : arquivos) {
-                    if (arquivo.getName().endsWith(".png")) {
-                        arquivo.delete();
-                    }
+    private void floodFillParalelo(int x, int y, int corOriginal, int novaCor) {
+        PreenchimentoParalelo paralelo = new PreenchimentoParalelo(raster);
+        int[] desdeUltimoFrame = {0};
+        // Os blocos não passam por pintar(): o histórico e o destino dos frames recebem as
+        // sequências de cada rodada
+        HistoricoPreenchimento registro = historico;
+        boolean alteracoes = enviarAlteracoes;
+        paralelo.executar(x, y, corOriginal, novaCor, pintadosNaRodada -> {
+            contadorOperacoes += pintadosNaRodada;
+            desdeUltimoFrame[0] += pintadosNaRodada;
+            if (desdeUltimoFrame[0] >= intervaloPorFrame) {
+                salvarFrameAtual();
+                desdeUltimoFrame[0] = 0;
+            }
+        }, registro == null && !alteracoes ? null : (inicio, fim) -> {
+            if (registro != null) {
+                registro.registrarSequencia(inicio, fim + 1, corOriginal);
+            }
+            if (alteracoes) {
+                frames.registrarAlteracao(inicio, fim + 1);
+            }
+        });
+    }
+    
+    /**
+     * Repassa ao destino dos frames uma sequência [inicio, fim] reescrita pelo histórico
+     */
+    private void registrarAlteracao(int inicio, int fim) {
+        frames.registrarAlteracao(inicio, fim + 1);
+    }
+    
+    /**
+     * Empilha uma semente para cada sequência da cor original
+     * encontrada na linha py entre as colunas inicio e fim
+     */
+    private void empilharSequencias(PilhaInteiros pilha, int inicio, int fim, int py, int corOriginal) {
+        int inicioLinha = py * largura;
+        boolean dentroDaSequencia = false;
+        for (int indice = inicioLinha + inicio; indice <= inicioLinha + fim; indice++) {
+            if (raster.get(indice) == corOriginal) {
+                if (!dentroDaSequencia) {
+                    pilha.empilhar(indice);
+                    dentroDaSequencia = true;
                 }
+            } else {
+                dentroDaSequencia = false;
             }
-        } else {
-            pasta.mkdirs();
         }
-        
-        // Salva cada frame
-        for (int i = 0; i < frames.getTamanho(); i++) {
-            BufferedImage frame = frames.obter(i);
-            String nomeArquivo = String.format("frame_%04d.png", i);
-            File arquivo = new File(pasta, nomeArquivo);
-            ImageIO.write(frame, "PNG", arquivo);
+    }
+    
+    /**
+     * Cria o destino padrão (JornalFrames) com o frame inicial, se nenhum foi informado
+     * Chamado antes de qualquer alteração na imagem; assim quem informa o próprio
+     * destino não paga a cópia da imagem do jornal nem um frame inicial descartado
+     */
+    private void garantirDestinoFrames() {
+        if (frames == null) {
+            frames = new JornalFrames();
+            enviarAlteracoes = true;
+            salvarFrameAtual();
+        }
+    }
+    
+    /**
+     * Salva um frame da imagem atual, medindo o tempo e a alocação do envio
+     */
+    private void salvarFrameAtual() {
+        EventoFrame evento = new EventoFrame();
+        evento.begin();
+        long bytesAntes = MetricasPreenchimento.bytesAlocadosNaThread();
+        long inicio = System.nanoTime();
+        try {
+            frames.adicionarFrame(raster.comoImagem());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao enviar frame ao destino", e);
+        }
+        numeroFrames++;
+        long bytes = MetricasPreenchimento.bytesAlocadosNaThread() - bytesAntes;
+        metricas.registrarFrame(System.nanoTime() - inicio, bytes);
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.numero = numeroFrames;
+            evento.bytesAlocados = bytes;
+            evento.commit();
+        }
+    }
+    
+    /**
+     * Salva todos os frames armazenados como arquivos PNG na pasta frames
+     * Disponível apenas quando o destino dos frames os armazena (ArmazenamentoFrames)
+     */
+    public void salvarFrames(String pastaFrames) throws IOException {
+        garantirDestinoFrames();
+        if (!(frames instanceof ArmazenamentoFrames)) {
+            throw new IllegalStateException("Os frames foram enviados a um destino que não os armazena");
         }
+        ArmazenamentoFrames armazenamento = (ArmazenamentoFrames) frames;
         
-        System.out.println("Salvos " + frames.getTamanho() + " frames na pasta: " + pastaFrames);
+        // Limpa a pasta de frames e salva cada frame
+        DestinoPNG png = new DestinoPNG(pastaFrames);
+        for (int i = 0; i < armazenamento.getTamanho(); i++) {
+            png.adicionarFrame(armazenamento.obterFrame(i));
+        }
+        png.fechar();
+    }
+    
+    /**
+     * Salva o estado atual da imagem como PNG
+     */
+    public void salvarImagem(String caminhoArquivo) throws IOException {
+        ImageIO.write(raster.comoImagem(), "PNG", new File(caminhoArquivo));
     }
     
     /**
@@ -224,10 +802,106 @@ public class FloodFill {
         if (x < 0 || x >= largura || y < 0 || y >= altura) {
             throw new IllegalArgumentException("Coordenadas fora dos limites da imagem");
         }
-        return new Color(imagem.getRGB(x, y));
+        return new Color(raster.get(y * largura + x));
+    }
+    
+    /**
+     * Raster onde o preenchimento acontece
+     */
+    public RasterARGB getRaster() {
+        return raster;
     }
     
+    /**
+     * Frames enviados ao destino atual, incluindo o inicial (que é enviado ao
+     * informar o destino ou, com o destino padrão, no primeiro preenchimento)
+     */
     public int getNumeroFrames() {
-        return frames.getTamanho();
+        return numeroFrames;
+    }
+    
+    /**
+     * Buscas do ComparadorLinha sobre o raster, dentro de uma linha
+     * No heap, o comparador trabalha direto no array de pixels; fora dele, os
+     * pixels são lidos (RasterARGB.ler) para um buffer do tamanho de uma linha, em
+     * partes que dobram a cada leitura: uma sequência curta custa uma leitura curta
+     * e uma sequência longa, poucas leituras
+     */
+    private static class BuscaTolerancia {
+        private static final int PRIMEIRA_PARTE = 64;
+        
+        private final RasterARGB raster;
+        private final ComparadorLinha comparador;
+        private final int[] pixels;
+        private final int[] linha;
+        
+        BuscaTolerancia(RasterARGB raster, ComparadorLinha comparador) {
+            this.raster = raster;
+            this.comparador = comparador;
+            this.pixels = raster instanceof RasterHeap ? ((RasterHeap) raster).getPixels() : null;
+            this.linha = pixels == null ? new int[raster.getLargura()] : null;
+        }
+        
+        boolean corresponde(int indice) {
+            return comparador.corresponde(raster.get(indice));
+        }
+        
+        /**
+         * Primeiro índice em [inicio, fim) cujo pixel não corresponde, ou fim
+         */
+        int proximaDiferente(int inicio, int fim) {
+            if (pixels != null) {
+                return comparador.proximaDiferente(pixels, inicio, fim);
+            }
+            for (int parte = PRIMEIRA_PARTE; inicio < fim; parte = Math.min(2 * parte, linha.length)) {
+                int quantidade = Math.min(parte, fim - inicio);
+                raster.ler(inicio, linha, 0, quantidade);
+                int diferente = comparador.proximaDiferente(linha, 0, quantidade);
+                if (diferente < quantidade) {
+                    return inicio + diferente;
+                }
+                inicio += quantidade;
+            }
+            return fim;
+        }
+        
+        /**
+         * Primeiro índice em [inicio, fim) cujo pixel corresponde, ou fim
+         */
+        int proximaIgual(int inicio, int fim) {
+            if (pixels != null) {
+                return comparador.proximaIgual(pixels, inicio, fim);
+            }
+            for (int parte = PRIMEIRA_PARTE; inicio < fim; parte = Math.min(2 * parte, linha.length)) {
+                int quantidade = Math.min(parte, fim - inicio);
+                raster.ler(inicio, linha, 0, quantidade);
+                int igual = comparador.proximaIgual(linha, 0, quantidade);
+                if (igual < quantidade) {
+                    return inicio + igual;
+                }
+                inicio += quantidade;
+            }
+            return fim;
+        }
+        
+        /**
+         * Maior índice em [limite, inicio] cujo pixel não corresponde, ou limite - 1
+         */
+        int anteriorDiferente(int inicio, int limite) {
+            if (pixels != null) {
+                return comparador.anteriorDiferente(pixels, inicio, limite);
+            }
+            for (int parte = PRIMEIRA_PARTE; inicio >= limite; parte = Math.min(2 * parte, linha.length)) {
+                int quantidade = Math.min(parte, inicio - limite + 1);
+                int de = inicio - quantidade + 1;
+                raster.ler(de, linha, 0, quantidade);
+                int diferente = comparador.anteriorDiferente(linha, quantidade - 1, 0);
+                if (diferente >= 0) {
+                    return de + diferente;
+                }
+                inicio = de - 1;
+            }
+            return limite - 1;
+        }
     }
 }
@@ -0,0 +1,251 @@
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import javax.imageio.ImageIO;
+import estruturas.PilhaInteiros;
+
+/**
+ * Flood fill fora da memória, para imagens maiores que o heap
+ * 
+ * Uso: java FloodFillEmBlocos <entrada> <x> <y> <cor> <saída> [lado do bloco] [blocos na memória]
+ * 
+ * A imagem fica num RasterEmBlocos: só um conjunto de blocos está na memória
+ * e o resto é decodificado sob demanda ou volta do arquivo de rascunho. O
+ * preenchimento é o scanline, feito um bloco de cada vez, como no
+ * PreenchimentoParalelo: os trechos que passam da borda do bloco ficam
+ * pendentes para o bloco vizinho, e o próximo bloco processado é, sempre que
+ * possível, um que já está na memória. A saída é gravada a partir dos blocos,
+ * sem montar a imagem inteira.
+ * 
+ * Não há frames nem histórico neste modo: cada frame seria uma cópia da imagem inteira.
+ */
+public class FloodFillEmBlocos implements Closeable {
+    public static final int LADO_PADRAO = 512;
+    public static final int BLOCOS_PADRAO = 64;
+    
+    private final RasterEmBlocos raster;
+    private final HashMap<Integer, PilhaInteiros> pendentes;
+    private long blocosProcessados;
+    
+    public FloodFillEmBlocos(String caminho) throws IOException {
+        this(new File(caminho), LADO_PADRAO, BLOCOS_PADRAO, File.createTempFile("floodfill", ".blocos"));
+    }
+    
+    /**
+     * @param lado Lado dos blocos, em pixels
+     * @param blocosEmMemoria Blocos mantidos na memória (cada um ocupa lado * lado * 4 bytes)
+     * @param arquivoRascunho Arquivo de rascunho dos blocos alterados, apagado em close()
+     */
+    public FloodFillEmBlocos(File imagem, int lado, int blocosEmMemoria, File arquivoRascunho) throws IOException {
+        this.raster = new RasterEmBlocos(imagem, lado, blocosEmMemoria, arquivoRascunho);
+        this.pendentes = new HashMap<>();
+    }
+    
+    /**
+     * Preenche a região de (x, y) com a nova cor
+     * @return Número de pixels pintados
+     */
+    public long executarFloodFill(int x, int y, Color novaCor) throws IOException {
+        if (x < 0 || x >= raster.getLargura() || y < 0 || y >= raster.getAltura()) {
+            throw new IllegalArgumentException("Coordenadas fora da imagem: (" + x + ", " + y + ")");
+        }
+        int corOriginal = raster.getCor(x, y);
+        int cor = novaCor.getRGB();
+        if (corOriginal == cor) {
+            return 0;
+        }
+        
+        long pintados = 0;
+        repassar(x, y, x);
+        while (!pendentes.isEmpty()) {
+            int numero = proximoBloco();
+            PilhaInteiros entradas = pendentes.remove(numero);
+            pintados += preencher(raster.obter(numero), entradas, corOriginal, cor);
+            blocosProcessados++;
+        }
+        return pintados;
+    }
+    
+    /**
+     * Um bloco com trechos pendentes, de preferência um que já está na memória
+     */
+    private int proximoBloco() {
+        int qualquer = -1;
+        for (int numero : pendentes.keySet()) {
+            if (raster.estaEmMemoria(numero)) {
+                return numero;
+            }
+            qualquer = numero;
+        }
+        return qualquer;
+    }
+    
+    /**
+     * Deixa pendente o trecho [inicio, fim] da linha y, todo dentro de um bloco
+     */
+    private void repassar(int inicio, int y, int fim) {
+        int numero = raster.numeroBloco(inicio, y);
+        PilhaInteiros trechos = pendentes.get(numero);
+        if (trechos == null) {
+            trechos = new PilhaInteiros();
+            pendentes.put(numero, trechos);
+        }
+        trechos.empilhar(y);
+        trechos.empilhar(inicio);
+        trechos.empilhar(fim);
+    }
+    
+    /**
+     * Scanline restrito a um bloco, a partir dos trechos recebidos
+     * @return Pixels pintados no bloco
+     */
+    private long preencher(RasterEmBlocos.Bloco bloco, PilhaInteiros entradas, int corOriginal, int novaCor) {
+        int[] pixels = bloco.pixels;
+        int larguraBloco = bloco.largura;
+        int ultimaColuna = larguraBloco - 1;
+        
+        // Os trechos chegam em coordenadas da imagem e viram sementes locais
+        PilhaInteiros sementes = new PilhaInteiros();
+        while (!entradas.estaVazia()) {
+            int fim = entradas.desempilhar() - bloco.x0;
+            int inicio = entradas.desempilhar() - bloco.x0;
+            int linha = (entradas.desempilhar() - bloco.y0) * larguraBloco;
+            empilharSequencias(sementes, pixels, linha + inicio, linha + fim, corOriginal);
+        }
+        
+        long pintados = 0;
+        while (!sementes.estaVazia()) {
+            int semente = sementes.desempilhar();
+            if (pixels[semente] != corOriginal) {
+                continue;
+            }
+            
+            int ly = semente / larguraBloco;
+            int inicioLinha = ly * larguraBloco;
+            int inicio = semente - inicioLinha;
+            int fim = inicio;
+            while (inicio > 0 && pixels[inicioLinha + inicio - 1] == corOriginal) {
+                inicio--;
+            }
+            while (fim < ultimaColuna && pixels[inicioLinha + fim + 1] == corOriginal) {
+                fim++;
+            }
+            
+            for (int px = inicio; px <= fim; px++) {
+                pixels[inicioLinha + px] = novaCor;
+            }
+            pintados += fim - inicio + 1;
+            
+            // Vizinhos à esquerda e à direita ficam em outros blocos
+            int y = bloco.y0 + ly;
+            if (inicio == 0 && bloco.x0 > 0) {
+                repassar(bloco.x0 - 1, y, bloco.x0 - 1);
+            }
+            if (fim == ultimaColuna && bloco.x0 + larguraBloco < raster.getLargura()) {
+                repassar(bloco.x0 + larguraBloco, y, bloco.x0 + larguraBloco);
+            }
+            
+            // Linhas vizinhas: dentro do bloco viram sementes, fora dele ficam pendentes
+            if (ly > 0) {
+                empilharSequencias(sementes, pixels, inicioLinha - larguraBloco + inicio,
+                        inicioLinha - larguraBloco + fim, corOriginal);
+            } else if (y > 0) {
+                repassar(bloco.x0 + inicio, y - 1, bloco.x0 + fim);
+            }
+            if (ly < bloco.altura - 1) {
+                empilharSequencias(sementes, pixels, inicioLinha + larguraBloco + inicio,
+                        inicioLinha + larguraBloco + fim, corOriginal);
+            } else if (y < raster.getAltura() - 1) {
+                repassar(bloco.x0 + inicio, y + 1, bloco.x0 + fim);
+            }
+        }
+        if (pintados > 0) {
+            raster.marcarAlterado(bloco);
+        }
+        return pintados;
+    }
+    
+    private static void empilharSequencias(PilhaInteiros sementes, int[] pixels, int inicio, int fim,
+                                           int corOriginal) {
+        boolean dentroDaSequencia = false;
+        for (int indice = inicio; indice <= fim; indice++) {
+            if (pixels[indice] == corOriginal) {
+                if (!dentroDaSequencia) {
+                    sementes.empilhar(indice);
+                    dentroDaSequencia = true;
+                }
+            } else {
+                dentroDaSequencia = false;
+            }
+        }
+    }
+    
+    /**
+     * Grava a imagem atual; o formato vem da extensão (PNG se não houver)
+     * O gravador do ImageIO lê a imagem por regiões, montadas a partir dos blocos
+     */
+    public void salvarImagem(String caminho) throws IOException {
+        int ponto = caminho.lastIndexOf('.');
+        String formato = ponto < 0 ? "png" : caminho.substring(ponto + 1).toLowerCase();
+        if (!ImageIO.write(raster.comoImagem(), formato, new File(caminho))) {
+            throw new IOException("Formato de saída não suportado: " + formato);
+        }
+    }
+    
+    public Color getCorPixel(int x, int y) throws IOException {
+        return new Color(raster.getCor(x, y), true);
+    }
+    
+    public int getLargura() {
+        return raster.getLargura();
+    }
+    
+    public int getAltura() {
+        return raster.getAltura();
+    }
+    
+    public RasterEmBlocos getRaster() {
+        return raster;
+    }
+    
+    /**
+     * Vezes que um bloco foi processado (um bloco volta a ser processado quando a
+     * região sai dele e retorna por outro caminho)
+     */
+    public long getBlocosProcessados() {
+        return blocosProcessados;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        raster.close();
+    }
+    
+    public static void main(String[] args) {
+        if (args.length < 5 || args.length > 7) {
+            System.err.println("Uso: java FloodFillEmBlocos <entrada> <x> <y> <cor> <saída> [lado do bloco] [blocos na memória]");
+            System.exit(2);
+        }
+        int lado = args.length > 5 ? Integer.parseInt(args[5]) : LADO_PADRAO;
+        int blocos = args.length > 6 ? Integer.parseInt(args[6]) : BLOCOS_PADRAO;
+        
+        try (FloodFillEmBlocos floodFill = new FloodFillEmBlocos(new File(args[0]), lado, blocos,
+                File.createTempFile("floodfill", ".blocos"))) {
+            long inicio = System.currentTimeMillis();
+            long pintados = floodFill.executarFloodFill(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                    TarefaPreenchimento.lerCor(args[3]));
+            floodFill.salvarImagem(args[4]);
+            RasterEmBlocos raster = floodFill.getRaster();
+            System.out.printf("%d pixels pintados em %d ms (%dx%d, %d blocos processados, "
+                            + "%d decodificados, %d lidos e %d gravados no rascunho)%n",
+                    pintados, System.currentTimeMillis() - inicio, floodFill.getLargura(), floodFill.getAltura(),
+                    floodFill.getBlocosProcessados(), raster.getBlocosDecodificados(),
+                    raster.getBlocosLidosDoRascunho(), raster.getBlocosGravados());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Erro: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
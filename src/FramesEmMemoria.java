@@ -0,0 +1,29 @@
+import java.awt.image.BufferedImage;
+import estruturas.Lista;
+
+/**
+ * Armazena uma cópia completa da imagem para cada frame
+ * Simples, mas usa memória proporcional a frames × largura × altura
+ */
+public class FramesEmMemoria implements ArmazenamentoFrames {
+    private Lista<BufferedImage> frames;
+    
+    public FramesEmMemoria() {
+        this.frames = new Lista<>();
+    }
+    
+    @Override
+    public void adicionarFrame(BufferedImage imagem) {
+        frames.adicionar(ImagemARGB.copiar(imagem));
+    }
+    
+    @Override
+    public BufferedImage obterFrame(int indice) {
+        return frames.obter(indice);
+    }
+    
+    @Override
+    public int getTamanho() {
+        return frames.getTamanho();
+    }
+}
@@ -0,0 +1,219 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import estruturas.FilaInteiros;
+import estruturas.Lista;
+
+/**
+ * Armazena frames completos com um limite de memória no heap
+ * 
+ * Os frames mais recentes ficam no heap enquanto cabem no orçamento; quando ele
+ * estoura, os mais antigos são movidos para um arquivo temporário mapeado em
+ * memória (FileChannel.map). Um frame movido é devolvido como uma imagem cujo
+ * DataBuffer lê direto da região mapeada, sem cópia para o heap; o sistema
+ * operacional decide o que fica na memória física.
+ * 
+ * O arquivo é mapeado em segmentos com um número inteiro de frames, para que
+ * nenhum frame atravesse dois mapeamentos.
+ */
+public class FramesMapeados implements ArmazenamentoFrames {
+    private static final long TAMANHO_SEGMENTO = 256L << 20;
+    
+    private final long orcamentoBytes;
+    private final File arquivo;
+    private final RandomAccessFile acesso;
+    private final FileChannel canal;
+    private final Lista<MappedByteBuffer> segmentos;
+    private final FilaInteiros naMemoriaEmOrdem;
+    private int[][] naMemoria;
+    private int[] posicaoNoArquivo;
+    private int tamanho;
+    private int largura;
+    private int altura;
+    private int framesPorSegmento;
+    private int framesNoArquivo;
+    private long bytesNaMemoria;
+    
+    /**
+     * @param orcamentoBytes Memória máxima do heap ocupada pelos frames
+     */
+    public FramesMapeados(long orcamentoBytes) throws IOException {
+        this(orcamentoBytes, File.createTempFile("frames", ".bin"));
+        arquivo.deleteOnExit();
+    }
+    
+    /**
+     * @param arquivoTemporario Arquivo onde os frames que não cabem no orçamento são gravados
+     */
+    public FramesMapeados(long orcamentoBytes, File arquivoTemporario) throws IOException {
+        this.orcamentoBytes = orcamentoBytes;
+        this.arquivo = arquivoTemporario;
+        this.acesso = new RandomAccessFile(arquivoTemporario, "rw");
+        this.acesso.setLength(0);
+        this.canal = acesso.getChannel();
+        this.segmentos = new Lista<>();
+        this.naMemoriaEmOrdem = new FilaInteiros();
+        this.naMemoria = new int[16][];
+        this.posicaoNoArquivo = new int[16];
+    }
+    
+    @Override
+    public void adicionarFrame(BufferedImage imagem) {
+        if (tamanho == 0) {
+            largura = imagem.getWidth();
+            altura = imagem.getHeight();
+            framesPorSegmento = (int) Math.max(1, TAMANHO_SEGMENTO / bytesPorFrame());
+        } else if (imagem.getWidth() != largura || imagem.getHeight() != altura) {
+            throw new IllegalArgumentException("Todos os frames devem ter o mesmo tamanho");
+        }
+        
+        int[] pixels = imagem.getType() == BufferedImage.TYPE_INT_ARGB
+                ? ImagemARGB.pixels(imagem).clone()
+                : imagem.getRGB(0, 0, largura, altura, null, 0, largura);
+        if (tamanho == naMemoria.length) {
+            naMemoria = Arrays.copyOf(naMemoria, tamanho * 2);
+            posicaoNoArquivo = Arrays.copyOf(posicaoNoArquivo, tamanho * 2);
+        }
+        naMemoria[tamanho] = pixels;
+        posicaoNoArquivo[tamanho] = -1;
+        naMemoriaEmOrdem.enfileirar(tamanho);
+        bytesNaMemoria += bytesPorFrame();
+        tamanho++;
+        
+        // Move os frames mais antigos para o arquivo até voltar ao orçamento
+        // (o frame mais recente sempre fica no heap)
+        try {
+            while (bytesNaMemoria > orcamentoBytes && naMemoriaEmOrdem.getTamanho() > 1) {
+                despejar(naMemoriaEmOrdem.desenfileirar());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar frame no arquivo temporário", e);
+        }
+    }
+    
+    /**
+     * Grava o frame na próxima posição livre do arquivo e libera a cópia do heap
+     */
+    private void despejar(int indice) throws IOException {
+        int posicao = framesNoArquivo;
+        int segmento = posicao / framesPorSegmento;
+        if (segmento == segmentos.getTamanho()) {
+            long inicio = (long) segmento * framesPorSegmento * bytesPorFrame();
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, inicio,
+                    (long) framesPorSegmento * bytesPorFrame());
+            mapa.order(ByteOrder.nativeOrder());
+            segmentos.adicionar(mapa);
+        }
+        visao(posicao).put(naMemoria[indice]);
+        
+        posicaoNoArquivo[indice] = posicao;
+        naMemoria[indice] = null;
+        bytesNaMemoria -= bytesPorFrame();
+        framesNoArquivo++;
+    }
+    
+    /**
+     * Região do arquivo mapeado que contém o frame gravado na posição informada
+     */
+    private IntBuffer visao(int posicao) {
+        MappedByteBuffer mapa = segmentos.obter(posicao / framesPorSegmento);
+        int pixelsPorFrame = largura * altura;
+        IntBuffer inteiros = mapa.duplicate().order(ByteOrder.nativeOrder()).asIntBuffer();
+        inteiros.position((posicao % framesPorSegmento) * pixelsPorFrame);
+        inteiros.limit(inteiros.position() + pixelsPorFrame);
+        return inteiros.slice();
+    }
+    
+    @Override
+    public BufferedImage obterFrame(int indice) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException("Índice inválido: " + indice);
+        }
+        if (naMemoria[indice] != null) {
+            return ImagemARGB.criar(naMemoria[indice], largura, altura);
+        }
+        
+        // Imagem ARGB sobre a região mapeada, sem copiar os pixels
+        DataBuffer dados = new DataBufferMapeado(visao(posicaoNoArquivo[indice]));
+        SinglePixelPackedSampleModel modelo = new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT, largura, altura,
+                new int[]{0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000});
+        WritableRaster raster = Raster.createWritableRaster(modelo, dados, null);
+        return new BufferedImage(ColorModel.getRGBdefault(), raster, false, null);
+    }
+    
+    @Override
+    public int getTamanho() {
+        return tamanho;
+    }
+    
+    /**
+     * Número de frames que estão no arquivo mapeado, fora do heap
+     */
+    public int getFramesNoArquivo() {
+        return framesNoArquivo;
+    }
+    
+    /**
+     * Memória do heap ocupada pelos frames
+     */
+    public long getBytesNaMemoria() {
+        return bytesNaMemoria;
+    }
+    
+    /**
+     * Fecha o arquivo temporário e o exclui
+     * As imagens de frames já movidos não devem ser usadas depois disso
+     */
+    public void descartar() throws IOException {
+        canal.close();
+        acesso.close();
+        segmentos.limpar();
+        arquivo.delete();
+    }
+    
+    /**
+     * Como descartar(): ao fechar o destino, o arquivo temporário é excluído
+     */
+    @Override
+    public void fechar() throws IOException {
+        descartar();
+    }
+    
+    private long bytesPorFrame() {
+        return 4L * largura * altura;
+    }
+    
+    /**
+     * DataBuffer de inteiros que lê e escreve direto num IntBuffer (região mapeada)
+     */
+    private static class DataBufferMapeado extends DataBuffer {
+        private final IntBuffer dados;
+        
+        DataBufferMapeado(IntBuffer dados) {
+            super(DataBuffer.TYPE_INT, dados.capacity());
+            this.dados = dados;
+        }
+        
+        @Override
+        public int getElem(int banco, int i) {
+            return dados.get(i);
+        }
+        
+        @Override
+        public void setElem(int banco, int i, int valor) {
+            dados.put(i, valor);
+        }
+    }
+}
@@ -95,7 +95,8 @@ public class GeradorGIF {
             BufferedImage primeira = ImageIO.read(files[0]);
             ImageOutputStream output = new FileImageOutputStream(new File(nomeArquivoSaida));
 
-            GifSequenceWriter writer = new GifSequenceWriter(output, primeira.getType(), delay, loopInfinito);
+            // Os frames vêm do FloodFill (ARGB); o tipo lido do PNG pode ser TYPE_CUSTOM, que o writer não aceita
+            GifSequenceWriter writer = new GifSequenceWriter(output, BufferedImage.TYPE_INT_ARGB, delay, loopInfinito);
             writer.writeToSequence(primeira);
 
             // escreve os outros frames
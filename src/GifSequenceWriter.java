@@ -1,18 +1,34 @@
 import javax.imageio.*;
 import javax.imageio.metadata.*;
 import javax.imageio.stream.*;
+import java.awt.Rectangle;
 import java.awt.image.*;
 import java.io.*;
 import java.util.Iterator;
+import eventos.EventoQuadroGIF;
 
 /**
  * Classe para criar GIFs animados usando a API padrão do Java
  * Baseada na implementação do ImageIO
+ * 
+ * Opcionalmente, cada frame após o primeiro é reduzido ao retângulo que mudou
+ * em relação ao frame anterior, posicionado via imageLeftPosition/imageTopPosition
+ * 
+ * O tempo de cada writeToSequence é acumulado (getQuadrosEscritos, getNanosEscrita,
+ * getMaiorNanosQuadro) e emitido como evento do Java Flight Recorder (EventoQuadroGIF)
  */
-public class GifSequenceWriter {
+public class GifSequenceWriter implements EscritorGIF {
     private ImageWriter gifWriter;
     private ImageWriteParam imageWriteParam;
     private IIOMetadata imageMetaData;
+    private ImageTypeSpecifier imageTypeSpecifier;
+    private String metaFormatName;
+    private IIOMetadataNode metaDataRoot;
+    private boolean apenasRegiaoAlterada;
+    private int[] anterior;
+    private int quadrosEscritos;
+    private long nanosEscrita;
+    private long maiorNanosQuadro;
     
     /**
      * Cria um novo GifSequenceWriter
@@ -23,6 +39,16 @@ public class GifSequenceWriter {
      * @param loopContinuously Se true, o GIF será executado em loop infinito
      */
     public GifSequenceWriter(ImageOutputStream outputStream, int imageType, int delayTime, boolean loopContinuously) throws IOException {
+        this(outputStream, imageType, delayTime, loopContinuously, false);
+    }
+    
+    /**
+     * @param apenasRegiaoAlterada Se true, cada frame guarda só o retângulo alterado desde o anterior
+     */
+    public GifSequenceWriter(ImageOutputStream outputStream, int imageType, int delayTime, boolean loopContinuously,
+                             boolean apenasRegiaoAlterada) throws IOException {
+        this.apenasRegiaoAlterada = apenasRegiaoAlterada;
+        
         // Obtém o writer GIF
         Iterator<ImageWriter> writers = ImageIO.getImageWritersBySuffix("gif");
         if (!writers.hasNext()) {
@@ -31,11 +57,11 @@ public class GifSequenceWriter {
         gifWriter = writers.next();
         
         imageWriteParam = gifWriter.getDefaultWriteParam();
-        ImageTypeSpecifier imageTypeSpecifier = ImageTypeSpecifier.createFromBufferedImageType(imageType);
+        imageTypeSpecifier = ImageTypeSpecifier.createFromBufferedImageType(imageType);
         
         imageMetaData = gifWriter.getDefaultImageMetadata(imageTypeSpecifier, imageWriteParam);
         
-        String metaFormatName = imageMetaData.getNativeMetadataFormatName();
+        metaFormatName = imageMetaData.getNativeMetadataFormatName();
         
         IIOMetadataNode root = (IIOMetadataNode) imageMetaData.getAsTree(metaFormatName);
         
@@ -63,19 +89,102 @@ public class GifSequenceWriter {
         appEntensionsNode.appendChild(child);
         
         imageMetaData.setFromTree(metaFormatName, root);
+        metaDataRoot = root;
         
         gifWriter.setOutput(outputStream);
         
         gifWriter.prepareWriteSequence(null);
     }
     
+    @Override
     public void writeToSequence(RenderedImage img) throws IOException {
-        gifWriter.writeToSequence(new IIOImage(img, null, imageMetaData), imageWriteParam);
+        EventoQuadroGIF evento = new EventoQuadroGIF();
+        evento.begin();
+        long inicio = System.nanoTime();
+        Rectangle escrita = escreverQuadro(img);
+        long nanos = System.nanoTime() - inicio;
+        quadrosEscritos++;
+        nanosEscrita += nanos;
+        maiorNanosQuadro = Math.max(maiorNanosQuadro, nanos);
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.numero = quadrosEscritos;
+            evento.largura = escrita.width;
+            evento.altura = escrita.height;
+            evento.commit();
+        }
+    }
+    
+    /**
+     * Escreve o quadro e retorna a região da tela que ele ocupa
+     */
+    private Rectangle escreverQuadro(RenderedImage img) throws IOException {
+        if (!apenasRegiaoAlterada) {
+            gifWriter.writeToSequence(new IIOImage(img, null, imageMetaData), imageWriteParam);
+            return new Rectangle(0, 0, img.getWidth(), img.getHeight());
+        }
+        if (!(img instanceof BufferedImage)) {
+            throw new IllegalArgumentException("O modo de região alterada exige uma BufferedImage");
+        }
+        
+        BufferedImage imagem = (BufferedImage) img;
+        int largura = imagem.getWidth();
+        int altura = imagem.getHeight();
+        int[] atual = imagem.getType() == BufferedImage.TYPE_INT_ARGB
+                ? ImagemARGB.pixels(imagem)
+                : imagem.getRGB(0, 0, largura, altura, null, 0, largura);
+        
+        // O primeiro frame define a tela inteira
+        if (anterior == null) {
+            anterior = atual.clone();
+            gifWriter.writeToSequence(new IIOImage(imagem, null, imageMetaData), imageWriteParam);
+            return new Rectangle(0, 0, largura, altura);
+        }
+        
+        Rectangle regiao = ImagemARGB.regiaoAlterada(anterior, atual, largura, altura);
+        if (regiao == null) {
+            // Nada mudou: um pixel basta para manter o tempo do frame
+            regiao = new Rectangle(0, 0, 1, 1);
+        } else {
+            ImagemARGB.copiarRegiao(atual, anterior, largura, regiao);
+        }
+        
+        IIOMetadataNode imageDescriptorNode = getNode(metaDataRoot, "ImageDescriptor");
+        imageDescriptorNode.setAttribute("imageLeftPosition", Integer.toString(regiao.x));
+        imageDescriptorNode.setAttribute("imageTopPosition", Integer.toString(regiao.y));
+        imageDescriptorNode.setAttribute("imageWidth", Integer.toString(regiao.width));
+        imageDescriptorNode.setAttribute("imageHeight", Integer.toString(regiao.height));
+        
+        IIOMetadata frameMetaData = gifWriter.getDefaultImageMetadata(imageTypeSpecifier, imageWriteParam);
+        frameMetaData.setFromTree(metaFormatName, metaDataRoot);
+        
+        BufferedImage recorte = imagem.getSubimage(regiao.x, regiao.y, regiao.width, regiao.height);
+        gifWriter.writeToSequence(new IIOImage(recorte, null, frameMetaData), imageWriteParam);
+        return regiao;
+    }
+    
+    @Override
+    public int getQuadrosEscritos() {
+        return quadrosEscritos;
+    }
+    
+    /**
+     * Tempo total em writeToSequence (conversão, compressão e escrita dos quadros)
+     */
+    @Override
+    public long getNanosEscrita() {
+        return nanosEscrita;
+    }
+    
+    @Override
+    public long getMaiorNanosQuadro() {
+        return maiorNanosQuadro;
     }
     
     /**
      * Fecha o writer e finaliza a sequência
      */
+    @Override
     public void close() throws IOException {
         gifWriter.endWriteSequence();    
     }
@@ -0,0 +1,322 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import estruturas.ConjuntoBits;
+import estruturas.MapaInteiros;
+
+/**
+ * Histórico de desfazer/refazer dos preenchimentos, sem cópias da imagem
+ * 
+ * Durante um preenchimento, cada pixel pintado é marcado num conjunto de bits
+ * junto com a cor que tinha antes. Ao concluir, os pixels marcados viram
+ * sequências de linha (linha, coluna inicial, comprimento), e as cores de cada
+ * sequência, antes e depois, viram corridas (comprimento, cor). Uma região de
+ * cor única pintada com uma cor única custa poucos inteiros por linha, qualquer
+ * que seja a largura dela. Desfazer e refazer reescrevem as sequências inteiras
+ * com RasterARGB.preencher.
+ * 
+ * A memória do histórico é limitada: quando passa do limite, as alterações mais
+ * antigas são descartadas.
+ */
+public class HistoricoPreenchimento {
+    private static final long SEM_LIMITE = Long.MAX_VALUE;
+    
+    private final int largura;
+    private final long limiteBytes;
+    private final ArrayDeque<Alteracao> desfazer;
+    private final ArrayDeque<Alteracao> refazer;
+    private long bytesUsados;
+    
+    // Preenchimento em andamento
+    private final ConjuntoBits alterados;
+    private final MapaInteiros excecoes;
+    private int[] coresExcecao;
+    private int totalExcecoes;
+    private int corAnteriorComum;
+    private boolean temCorComum;
+    private int menorIndice;
+    private int maiorIndice;
+    
+    public HistoricoPreenchimento(int largura, int altura) {
+        this(largura, altura, SEM_LIMITE);
+    }
+    
+    /**
+     * @param limiteBytes Memória máxima das alterações guardadas (desfazer + refazer)
+     */
+    public HistoricoPreenchimento(int largura, int altura, long limiteBytes) {
+        if (limiteBytes < 0) {
+            throw new IllegalArgumentException("Limite de memória não pode ser negativo: " + limiteBytes);
+        }
+        this.largura = largura;
+        this.limiteBytes = limiteBytes;
+        this.desfazer = new ArrayDeque<>();
+        this.refazer = new ArrayDeque<>();
+        this.alterados = new ConjuntoBits(largura * altura);
+        this.excecoes = new MapaInteiros();
+        this.coresExcecao = new int[16];
+        iniciar();
+    }
+    
+    /**
+     * Começa a registrar um novo preenchimento
+     */
+    public void iniciar() {
+        if (menorIndice <= maiorIndice) {
+            alterados.limpar();
+        }
+        excecoes.limpar();
+        totalExcecoes = 0;
+        temCorComum = false;
+        menorIndice = Integer.MAX_VALUE;
+        maiorIndice = -1;
+    }
+    
+    /**
+     * Registra um pixel prestes a ser pintado, com a cor que ele tem agora
+     * Se o pixel já foi registrado neste preenchimento, vale a primeira cor
+     */
+    public void registrar(int indice, int corAnterior) {
+        if (!alterados.marcar(indice)) {
+            return;
+        }
+        menorIndice = Math.min(menorIndice, indice);
+        maiorIndice = Math.max(maiorIndice, indice);
+        if (!temCorComum) {
+            corAnteriorComum = corAnterior;
+            temCorComum = true;
+        } else if (corAnterior != corAnteriorComum) {
+            // Cores diferentes da primeira ficam à parte, indexadas pelo pixel
+            if (totalExcecoes == coresExcecao.length) {
+                coresExcecao = Arrays.copyOf(coresExcecao, totalExcecoes * 2);
+            }
+            coresExcecao[totalExcecoes] = corAnterior;
+            excecoes.colocar(indice, totalExcecoes++);
+        }
+    }
+    
+    /**
+     * Registra os pixels de [inicio, fim), ainda não registrados, todos da cor informada
+     */
+    public void registrarSequencia(int inicio, int fim, int corAnterior) {
+        if (!temCorComum || corAnterior == corAnteriorComum) {
+            corAnteriorComum = corAnterior;
+            temCorComum = true;
+            alterados.marcarIntervalo(inicio, fim);
+            menorIndice = Math.min(menorIndice, inicio);
+            maiorIndice = Math.max(maiorIndice, fim - 1);
+        } else {
+            for (int indice = inicio; indice < fim; indice++) {
+                registrar(indice, corAnterior);
+            }
+        }
+    }
+    
+    /**
+     * Conclui o preenchimento em andamento, lendo as cores novas no raster
+     * Um preenchimento que não pintou nada não entra no histórico
+     * @return true se a alteração foi guardada
+     */
+    public boolean concluir(RasterARGB pixels) {
+        if (menorIndice > maiorIndice) {
+            return false;
+        }
+        Alteracao alteracao = codificar(pixels);
+        iniciar();
+        
+        // Uma alteração nova invalida o que havia para refazer
+        while (!refazer.isEmpty()) {
+            bytesUsados -= refazer.pollLast().getBytes();
+        }
+        desfazer.addLast(alteracao);
+        bytesUsados += alteracao.getBytes();
+        while (bytesUsados > limiteBytes && !desfazer.isEmpty()) {
+            bytesUsados -= desfazer.pollFirst().getBytes();
+        }
+        return !desfazer.isEmpty();
+    }
+    
+    /**
+     * Percorre as linhas tocadas pelo preenchimento e converte os pixels marcados
+     * em sequências, com as corridas de cores anteriores e novas de cada uma
+     */
+    private Alteracao codificar(RasterARGB pixels) {
+        Inteiros sequencias = new Inteiros();
+        Inteiros anteriores = new Inteiros();
+        Inteiros novas = new Inteiros();
+        int ultimaLinha = maiorIndice / largura;
+        for (int linha = menorIndice / largura; linha <= ultimaLinha; linha++) {
+            int inicioLinha = linha * largura;
+            int fimLinha = inicioLinha + largura;
+            int inicio = alterados.proximoMarcado(inicioLinha, fimLinha);
+            while (inicio < fimLinha) {
+                int fim = alterados.proximoDesmarcado(inicio, fimLinha);
+                sequencias.adicionar(linha);
+                sequencias.adicionar(inicio - inicioLinha);
+                sequencias.adicionar(fim - inicio);
+                codificarAnteriores(anteriores, inicio, fim);
+                codificarNovas(novas, pixels, inicio, fim);
+                inicio = alterados.proximoMarcado(fim, fimLinha);
+            }
+        }
+        return new Alteracao(sequencias.recortar(), anteriores.recortar(), novas.recortar());
+    }
+    
+    private void codificarAnteriores(Inteiros corridas, int inicio, int fim) {
+        if (totalExcecoes == 0) {
+            corridas.adicionar(fim - inicio);
+            corridas.adicionar(corAnteriorComum);
+            return;
+        }
+        int comprimento = 0;
+        int cor = 0;
+        for (int indice = inicio; indice < fim; indice++) {
+            int posicao = excecoes.obter(indice);
+            int atual = posicao < 0 ? corAnteriorComum : coresExcecao[posicao];
+            if (comprimento > 0 && atual != cor) {
+                corridas.adicionar(comprimento);
+                corridas.adicionar(cor);
+                comprimento = 0;
+            }
+            cor = atual;
+            comprimento++;
+        }
+        corridas.adicionar(comprimento);
+        corridas.adicionar(cor);
+    }
+    
+    private static void codificarNovas(Inteiros corridas, RasterARGB pixels, int inicio, int fim) {
+        int indice = inicio;
+        while (indice < fim) {
+            int cor = pixels.get(indice);
+            int fimCorrida = indice + 1;
+            while (fimCorrida < fim && pixels.get(fimCorrida) == cor) {
+                fimCorrida++;
+            }
+            corridas.adicionar(fimCorrida - indice);
+            corridas.adicionar(cor);
+            indice = fimCorrida;
+        }
+    }
+    
+    /**
+     * Volta os pixels da última alteração às cores anteriores
+     * @return false se não há o que desfazer
+     */
+    public boolean desfazer(RasterARGB pixels) {
+        return desfazer(pixels, null);
+    }
+    
+    /**
+     * Como desfazer(pixels), informando ao registro cada sequência reescrita
+     */
+    public boolean desfazer(RasterARGB pixels, PreenchimentoParalelo.RegistroSequencias registro) {
+        Alteracao alteracao = desfazer.pollLast();
+        if (alteracao == null) {
+            return false;
+        }
+        alteracao.escrever(pixels, alteracao.anteriores, largura, registro);
+        refazer.addLast(alteracao);
+        return true;
+    }
+    
+    /**
+     * Reaplica a última alteração desfeita
+     * @return false se não há o que refazer
+     */
+    public boolean refazer(RasterARGB pixels) {
+        return refazer(pixels, null);
+    }
+    
+    /**
+     * Como refazer(pixels), informando ao registro cada sequência reescrita
+     */
+    public boolean refazer(RasterARGB pixels, PreenchimentoParalelo.RegistroSequencias registro) {
+        Alteracao alteracao = refazer.pollLast();
+        if (alteracao == null) {
+            return false;
+        }
+        alteracao.escrever(pixels, alteracao.novas, largura, registro);
+        desfazer.addLast(alteracao);
+        return true;
+    }
+    
+    public boolean podeDesfazer() {
+        return !desfazer.isEmpty();
+    }
+    
+    public boolean podeRefazer() {
+        return !refazer.isEmpty();
+    }
+    
+    /**
+     * Memória ocupada pelas alterações guardadas, em bytes
+     */
+    public long getBytesUsados() {
+        return bytesUsados;
+    }
+    
+    /**
+     * Descarta todo o histórico
+     */
+    public void limpar() {
+        desfazer.clear();
+        refazer.clear();
+        bytesUsados = 0;
+        iniciar();
+    }
+    
+    /**
+     * Um preenchimento guardado: sequências (linha, coluna, comprimento) e, para
+     * cada sequência em ordem, as corridas (comprimento, cor) que a cobrem
+     */
+    private static class Alteracao {
+        private final int[] sequencias;
+        private final int[] anteriores;
+        private final int[] novas;
+        
+        Alteracao(int[] sequencias, int[] anteriores, int[] novas) {
+            this.sequencias = sequencias;
+            this.anteriores = anteriores;
+            this.novas = novas;
+        }
+        
+        void escrever(RasterARGB pixels, int[] corridas, int largura, PreenchimentoParalelo.RegistroSequencias registro) {
+            int corrida = 0;
+            for (int s = 0; s < sequencias.length; s += 3) {
+                int indice = sequencias[s] * largura + sequencias[s + 1];
+                int fim = indice + sequencias[s + 2];
+                if (registro != null) {
+                    registro.pintada(indice, fim - 1);
+                }
+                while (indice < fim) {
+                    int comprimento = corridas[corrida++];
+                    pixels.preencher(indice, indice + comprimento, corridas[corrida++]);
+                    indice += comprimento;
+                }
+            }
+        }
+        
+        long getBytes() {
+            return 4L * (sequencias.length + anteriores.length + novas.length);
+        }
+    }
+    
+    /**
+     * Sequência de inteiros que cresce conforme é preenchida
+     */
+    private static class Inteiros {
+        private int[] valores = new int[48];
+        private int tamanho;
+        
+        void adicionar(int valor) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = valor;
+        }
+        
+        int[] recortar() {
+            return Arrays.copyOf(valores, tamanho);
+        }
+    }
+}
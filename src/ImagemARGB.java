@@ -0,0 +1,110 @@
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Utilitários para trabalhar diretamente com imagens TYPE_INT_ARGB
+ * Permite acessar o array int[] da imagem sem passar pelo ColorModel a cada pixel
+ */
+public class ImagemARGB {
+    
+    private ImagemARGB() {}
+    
+    /**
+     * Retorna a imagem no formato TYPE_INT_ARGB
+     * Se ela já estiver nesse formato, é devolvida sem cópia
+     */
+    public static BufferedImage converter(BufferedImage imagem) {
+        if (imagem.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return imagem;
+        }
+        int largura = imagem.getWidth();
+        BufferedImage convertida = new BufferedImage(largura, imagem.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        // Uma única conversão em bloco pelo ColorModel da imagem original
+        imagem.getRGB(0, 0, largura, imagem.getHeight(), pixels(convertida), 0, largura);
+        return convertida;
+    }
+    
+    /**
+     * Retorna o array de pixels (y * largura + x) de uma imagem TYPE_INT_ARGB
+     * Escritas no array alteram a imagem diretamente
+     */
+    public static int[] pixels(BufferedImage imagem) {
+        if (imagem.getType() != BufferedImage.TYPE_INT_ARGB) {
+            throw new IllegalArgumentException("A imagem deve ser do tipo TYPE_INT_ARGB");
+        }
+        return ((DataBufferInt) imagem.getRaster().getDataBuffer()).getData();
+    }
+    
+    /**
+     * Cria uma imagem TYPE_INT_ARGB que usa o array informado como seus pixels, sem cópia
+     */
+    public static BufferedImage criar(int[] pixels, int largura, int altura) {
+        DirectColorModel modelo = (DirectColorModel) ColorModel.getRGBdefault();
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length), largura, altura, largura,
+                modelo.getMasks(), null);
+        return new BufferedImage(modelo, raster, false, null);
+    }
+    
+    /**
+     * Calcula o menor retângulo que contém todos os pixels diferentes entre dois frames
+     * 
+     * @return O retângulo alterado, ou null se os frames forem iguais
+     */
+    public static Rectangle regiaoAlterada(int[] anterior, int[] atual, int largura, int altura) {
+        int primeiraLinha = -1;
+        int ultimaLinha = -1;
+        int menorX = largura;
+        int maiorX = -1;
+        for (int y = 0; y < altura; y++) {
+            int inicioLinha = y * largura;
+            int fimLinha = inicioLinha + largura;
+            int primeiro = Arrays.mismatch(anterior, inicioLinha, fimLinha, atual, inicioLinha, fimLinha);
+            if (primeiro < 0) {
+                continue;
+            }
+            if (primeiraLinha < 0) {
+                primeiraLinha = y;
+            }
+            ultimaLinha = y;
+            menorX = Math.min(menorX, primeiro);
+            
+            // Só precisa procurar o último pixel alterado além do maior X já encontrado
+            int ultimo = largura - 1;
+            while (ultimo > maiorX && anterior[inicioLinha + ultimo] == atual[inicioLinha + ultimo]) {
+                ultimo--;
+            }
+            maiorX = Math.max(maiorX, ultimo);
+        }
+        if (primeiraLinha < 0) {
+            return null;
+        }
+        return new Rectangle(menorX, primeiraLinha, maiorX - menorX + 1, ultimaLinha - primeiraLinha + 1);
+    }
+    
+    /**
+     * Copia a região informada de um array de pixels para outro de mesmo tamanho
+     */
+    public static void copiarRegiao(int[] origem, int[] destino, int largura, Rectangle regiao) {
+        for (int y = regiao.y; y < regiao.y + regiao.height; y++) {
+            int posicao = y * largura + regiao.x;
+            System.arraycopy(origem, posicao, destino, posicao, regiao.width);
+        }
+    }
+    
+    /**
+     * Cria uma cópia independente, no heap, da imagem TYPE_INT_ARGB
+     * (ou da imagem de um RasterForaDoHeap)
+     */
+    public static BufferedImage copiar(BufferedImage imagem) {
+        BufferedImage copia = new BufferedImage(imagem.getWidth(), imagem.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        int[] destino = pixels(copia);
+        RasterARGB.de(imagem).ler(0, destino, 0, destino.length);
+        return copia;
+    }
+}
@@ -0,0 +1,489 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import estruturas.FilaInteiros;
+
+/**
+ * Índice das regiões conexas (vizinhança 4) de mesma cor de uma imagem
+ * 
+ * Construído numa única passada: cada linha é dividida em sequências de pixels
+ * da mesma cor, e sequências vizinhas de mesma cor em linhas consecutivas são
+ * unidas com union-find. O resultado é um rótulo por pixel e, para cada região,
+ * sua cor, sua área e a lista das suas sequências. Assim um preenchimento pinta
+ * a região direto, sequência por sequência, sem percorrer vizinhos.
+ * 
+ * Depois de uma região ser pintada, recolorir() atualiza o índice: a região
+ * muda de cor e é unida às regiões vizinhas que já tinham a nova cor. As
+ * regiões também formam um union-find, então a união não reescreve rótulos;
+ * as listas de sequências são apenas encadeadas.
+ * 
+ * O índice recém-construído pode ser gravado num arquivo binário (salvar) e
+ * reaberto depois (carregar); os rótulos são lidos direto do arquivo mapeado
+ * em memória, e só as tabelas de regiões e sequências são copiadas. Um CRC32
+ * do conteúdo fica no cabeçalho, e um arquivo corrompido é recusado na abertura.
+ */
+public class IndiceRegioes {
+    private static final int MAGICO = 0x46465249; // "FFRI"
+    private static final int VERSAO = 2;
+    private static final int INTEIROS_CABECALHO = 9;
+    
+    private final int largura;
+    private final int altura;
+    
+    // Rótulo original de cada pixel (a região atual é raiz(rotulo))
+    private final IntBuffer rotulos;
+    
+    // Sequências: início (índice do pixel), comprimento e próxima da mesma região
+    private final int[] inicioSequencia;
+    private final int[] comprimentoSequencia;
+    private final int[] proximaSequencia;
+    
+    // Regiões: union-find, cor, área e lista encadeada de sequências
+    private final int[] pai;
+    private final int[] cor;
+    private final int[] area;
+    private final int[] primeira;
+    private final int[] ultima;
+    private int numeroRegioes;
+    
+    // Marcação de regiões já vistas ao procurar vizinhas
+    private final int[] marca;
+    private int rodada;
+    private boolean alterado;
+    
+    IndiceRegioes(int largura, int altura, IntBuffer rotulos, int[] inicioSequencia, int[] comprimentoSequencia,
+                  int[] regiaoDaSequencia, int[] corRegiao) {
+        this.largura = largura;
+        this.altura = altura;
+        this.rotulos = rotulos;
+        this.inicioSequencia = inicioSequencia;
+        this.comprimentoSequencia = comprimentoSequencia;
+        this.cor = corRegiao;
+        this.numeroRegioes = corRegiao.length;
+        
+        int regioes = corRegiao.length;
+        this.pai = new int[regioes];
+        this.area = new int[regioes];
+        this.primeira = new int[regioes];
+        this.ultima = new int[regioes];
+        this.marca = new int[regioes];
+        Arrays.fill(primeira, -1);
+        for (int r = 0; r < regioes; r++) {
+            pai[r] = r;
+        }
+        
+        // Encadeia as sequências de cada região, na ordem da imagem
+        int sequencias = inicioSequencia.length;
+        this.proximaSequencia = new int[sequencias];
+        for (int s = 0; s < sequencias; s++) {
+            int r = regiaoDaSequencia[s];
+            proximaSequencia[s] = -1;
+            if (primeira[r] < 0) {
+                primeira[r] = s;
+            } else {
+                proximaSequencia[ultima[r]] = s;
+            }
+            ultima[r] = s;
+            area[r] += comprimentoSequencia[s];
+        }
+    }
+    
+    /**
+     * Rotula todas as regiões da imagem numa passada
+     * O raster é lido uma linha de cada vez (RasterARGB.ler), então também
+     * funciona com a imagem fora do heap; só os rótulos ficam num int[]
+     */
+    public static IndiceRegioes construir(RasterARGB raster) {
+        int largura = raster.getLargura();
+        int altura = raster.getAltura();
+        int[] linha = new int[largura];
+        int[] inicio = new int[Math.max(16, altura)];
+        int[] comprimento = new int[inicio.length];
+        int[] paiSequencia = new int[inicio.length];
+        int[] corSequencia = new int[inicio.length];
+        int sequencias = 0;
+        int inicioLinhaAnterior = 0;
+        
+        for (int y = 0; y < altura; y++) {
+            int inicioLinha = sequencias;
+            int base = y * largura;
+            raster.ler(base, linha, 0, largura);
+            
+            // Divide a linha em sequências da mesma cor
+            int x = 0;
+            while (x < largura) {
+                int c = linha[x];
+                int fim = x + 1;
+                while (fim < largura && linha[fim] == c) {
+                    fim++;
+                }
+                if (sequencias == inicio.length) {
+                    inicio = Arrays.copyOf(inicio, sequencias * 2);
+                    comprimento = Arrays.copyOf(comprimento, sequencias * 2);
+                    paiSequencia = Arrays.copyOf(paiSequencia, sequencias * 2);
+                    corSequencia = Arrays.copyOf(corSequencia, sequencias * 2);
+                }
+                inicio[sequencias] = base + x;
+                comprimento[sequencias] = fim - x;
+                paiSequencia[sequencias] = sequencias;
+                corSequencia[sequencias] = c;
+                sequencias++;
+                x = fim;
+            }
+            
+            // Une com as sequências da linha de cima que se sobrepõem e têm a mesma cor
+            if (y > 0) {
+                int a = inicioLinhaAnterior;
+                int b = inicioLinha;
+                while (a < inicioLinha && b < sequencias) {
+                    int inicioA = inicio[a] - (base - largura);
+                    int fimA = inicioA + comprimento[a];
+                    int inicioB = inicio[b] - base;
+                    int fimB = inicioB + comprimento[b];
+                    if (inicioA < fimB && inicioB < fimA && corSequencia[a] == corSequencia[b]) {
+                        unir(paiSequencia, a, b);
+                    }
+                    if (fimA <= fimB) {
+                        a++;
+                    } else {
+                        b++;
+                    }
+                }
+            }
+            inicioLinhaAnterior = inicioLinha;
+        }
+        
+        // Numera as raízes em sequência e rotula os pixels
+        int[] regiaoDaSequencia = new int[sequencias];
+        int[] numeroDaRaiz = new int[sequencias];
+        int regioes = 0;
+        for (int s = 0; s < sequencias; s++) {
+            int raiz = raiz(paiSequencia, s);
+            if (raiz == s) {
+                numeroDaRaiz[s] = regioes++;
+            }
+            regiaoDaSequencia[s] = numeroDaRaiz[raiz];
+        }
+        int[] corRegiao = new int[regioes];
+        int[] rotulos = new int[largura * altura];
+        for (int s = 0; s < sequencias; s++) {
+            corRegiao[regiaoDaSequencia[s]] = corSequencia[s];
+            Arrays.fill(rotulos, inicio[s], inicio[s] + comprimento[s], regiaoDaSequencia[s]);
+        }
+        
+        return new IndiceRegioes(largura, altura, IntBuffer.wrap(rotulos), Arrays.copyOf(inicio, sequencias),
+                Arrays.copyOf(comprimento, sequencias), regiaoDaSequencia, corRegiao);
+    }
+    
+    /**
+     * Grava o índice num arquivo binário, identificado pelo hash da imagem
+     * 
+     * Formato (inteiros de 32 bits, big-endian):
+     *   cabeçalho: "FFRI", versão, largura, altura, hash (2 inteiros), regiões, sequências,
+     *              CRC32 do restante do arquivo
+     *   cor de cada região
+     *   início, comprimento e região de cada sequência
+     *   rótulo de cada pixel (largura × altura)
+     * 
+     * Só o índice como foi construído pode ser gravado, antes de qualquer recolorir()
+     */
+    public void salvar(File arquivo, long hashImagem) throws IOException {
+        if (alterado) {
+            throw new IllegalStateException("O índice já foi alterado e não corresponde mais à imagem original");
+        }
+        int regioes = cor.length;
+        int sequencias = inicioSequencia.length;
+        long bytes = 4L * (INTEIROS_CABECALHO + regioes + 3L * sequencias + (long) largura * altura);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Índice grande demais para um único arquivo mapeado: " + bytes + " bytes");
+        }
+        
+        // Região de cada sequência, a partir das listas (ainda as originais)
+        int[] regiaoDaSequencia = new int[sequencias];
+        for (int r = 0; r < regioes; r++) {
+            for (int s = primeira[r]; s >= 0; s = proximaSequencia[s]) {
+                regiaoDaSequencia[s] = r;
+            }
+        }
+        
+        try (RandomAccessFile acesso = new RandomAccessFile(arquivo, "rw")) {
+            acesso.setLength(bytes);
+            MappedByteBuffer mapa = acesso.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            IntBuffer saida = mapa.asIntBuffer();
+            saida.put(new int[]{MAGICO, VERSAO, largura, altura, (int) (hashImagem >>> 32), (int) hashImagem,
+                    regioes, sequencias, 0});
+            saida.put(cor);
+            saida.put(inicioSequencia);
+            saida.put(comprimentoSequencia);
+            saida.put(regiaoDaSequencia);
+            IntBuffer todosRotulos = rotulos.duplicate();
+            todosRotulos.clear();
+            saida.put(todosRotulos);
+            saida.put(INTEIROS_CABECALHO - 1, crcConteudo(mapa));
+            mapa.force();
+        }
+    }
+    
+    /**
+     * Abre um índice gravado por salvar(), mapeando os rótulos em memória
+     * @return O índice, ou null se o arquivo não for da imagem informada ou estiver corrompido
+     */
+    public static IndiceRegioes carregar(File arquivo, int largura, int altura, long hashImagem) throws IOException {
+        try (RandomAccessFile acesso = new RandomAccessFile(arquivo, "r")) {
+            long bytes = acesso.length();
+            if (bytes < 4L * INTEIROS_CABECALHO || bytes > Integer.MAX_VALUE) {
+                return null;
+            }
+            // O mapeamento continua válido depois que o arquivo é fechado
+            MappedByteBuffer mapa = acesso.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            IntBuffer entrada = mapa.asIntBuffer();
+            int[] cabecalho = new int[INTEIROS_CABECALHO];
+            entrada.get(cabecalho);
+            long hash = ((long) cabecalho[4] << 32) | (cabecalho[5] & 0xFFFFFFFFL);
+            int regioes = cabecalho[6];
+            int sequencias = cabecalho[7];
+            if (cabecalho[0] != MAGICO || cabecalho[1] != VERSAO || cabecalho[2] != largura
+                    || cabecalho[3] != altura || hash != hashImagem || regioes < 0 || sequencias < 0
+                    || bytes != 4L * (INTEIROS_CABECALHO + regioes + 3L * sequencias + (long) largura * altura)) {
+                return null;
+            }
+            // Rótulos ou sequências corrompidos apontariam para fora das tabelas
+            if (cabecalho[INTEIROS_CABECALHO - 1] != crcConteudo(mapa)) {
+                return null;
+            }
+            
+            int[] corRegiao = new int[regioes];
+            int[] inicio = new int[sequencias];
+            int[] comprimento = new int[sequencias];
+            int[] regiaoDaSequencia = new int[sequencias];
+            entrada.get(corRegiao);
+            entrada.get(inicio);
+            entrada.get(comprimento);
+            entrada.get(regiaoDaSequencia);
+            IntBuffer rotulos = entrada.slice();
+            return new IndiceRegioes(largura, altura, rotulos, inicio, comprimento, regiaoDaSequencia, corRegiao);
+        }
+    }
+    
+    /**
+     * CRC32 de tudo o que vem depois do cabeçalho
+     */
+    private static int crcConteudo(MappedByteBuffer mapa) {
+        CRC32 crc = new CRC32();
+        crc.update(mapa.duplicate().position(4 * INTEIROS_CABECALHO));
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * Abre o índice da imagem na pasta de cache ou, se ainda não existir, constrói e grava
+     * O arquivo tem o hash da imagem no nome; é gravado num temporário e depois
+     * renomeado, para que execuções simultâneas nunca leiam um arquivo incompleto
+     */
+    public static IndiceRegioes obter(RasterARGB raster, File pastaCache) throws IOException {
+        int largura = raster.getLargura();
+        int altura = raster.getAltura();
+        long hash = hashImagem(raster);
+        File arquivo = new File(pastaCache, String.format("%016x.regioes", hash));
+        if (arquivo.isFile()) {
+            IndiceRegioes salvo = carregar(arquivo, largura, altura, hash);
+            if (salvo != null) {
+                return salvo;
+            }
+        }
+        
+        IndiceRegioes indice = construir(raster);
+        if (!pastaCache.isDirectory() && !pastaCache.mkdirs()) {
+            throw new IOException("Não foi possível criar a pasta de cache: " + pastaCache);
+        }
+        File temporario = File.createTempFile("regioes", ".tmp", pastaCache);
+        try {
+            indice.salvar(temporario, hash);
+            try {
+                Files.move(temporario.toPath(), arquivo.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario.toPath(), arquivo.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temporario.delete();
+        }
+        return indice;
+    }
+    
+    /**
+     * Hash de 64 bits do conteúdo da imagem (dimensões e pixels), usado como chave do arquivo
+     */
+    public static long hashImagem(RasterARGB raster) {
+        int largura = raster.getLargura();
+        int altura = raster.getAltura();
+        int[] linha = new int[largura];
+        long hash = 0xCBF29CE484222325L ^ (((long) largura << 32) | altura);
+        for (int y = 0; y < altura; y++) {
+            raster.ler(y * largura, linha, 0, largura);
+            for (int pixel : linha) {
+                hash = (hash ^ pixel) * 0x100000001B3L;
+                hash ^= hash >>> 32;
+            }
+        }
+        return hash;
+    }
+    
+    /**
+     * Região que contém o pixel (índice y * largura + x)
+     */
+    public int regiao(int indice) {
+        return raiz(pai, rotulos.get(indice));
+    }
+    
+    public int getCor(int regiao) {
+        return cor[regiao];
+    }
+    
+    /**
+     * Número de pixels da região
+     */
+    public int getArea(int regiao) {
+        return area[regiao];
+    }
+    
+    /**
+     * Primeira sequência da região, ou -1
+     */
+    public int primeiraSequencia(int regiao) {
+        return primeira[regiao];
+    }
+    
+    /**
+     * Próxima sequência da mesma região, ou -1 ao fim da lista
+     */
+    public int proximaSequencia(int sequencia) {
+        return proximaSequencia[sequencia];
+    }
+    
+    /**
+     * Índice do primeiro pixel da sequência
+     */
+    public int inicioSequencia(int sequencia) {
+        return inicioSequencia[sequencia];
+    }
+    
+    public int comprimentoSequencia(int sequencia) {
+        return comprimentoSequencia[sequencia];
+    }
+    
+    /**
+     * Número de regiões distintas na imagem atual
+     */
+    public int getNumeroRegioes() {
+        return numeroRegioes;
+    }
+    
+    /**
+     * Atualiza o índice depois que a região foi pintada com a nova cor:
+     * a região passa a ter a nova cor e é unida às vizinhas que já a tinham
+     */
+    public void recolorir(int regiao, int novaCor) {
+        regiao = raiz(pai, regiao);
+        cor[regiao] = novaCor;
+        alterado = true;
+        
+        // Procura as vizinhas com a nova cor antes de unir, porque a união altera as listas
+        FilaInteiros vizinhas = new FilaInteiros();
+        rodada++;
+        marca[regiao] = rodada;
+        for (int s = primeira[regiao]; s >= 0; s = proximaSequencia[s]) {
+            int inicio = inicioSequencia[s];
+            int fim = inicio + comprimentoSequencia[s];
+            int inicioLinha = inicio - inicio % largura;
+            if (inicio > inicioLinha) {
+                verificarVizinha(inicio - 1, novaCor, vizinhas);
+            }
+            if (fim < inicioLinha + largura) {
+                verificarVizinha(fim, novaCor, vizinhas);
+            }
+            if (inicioLinha > 0) {
+                verificarVizinhas(inicio - largura, fim - largura, novaCor, vizinhas);
+            }
+            if (inicioLinha + largura < largura * altura) {
+                verificarVizinhas(inicio + largura, fim + largura, novaCor, vizinhas);
+            }
+        }
+        
+        while (!vizinhas.estaVazia()) {
+            regiao = unirRegioes(regiao, vizinhas.desenfileirar());
+        }
+    }
+    
+    /**
+     * Verifica os pixels [inicio, fim) de uma linha vizinha, pulando de uma
+     * sequência de mesmo rótulo para a próxima
+     */
+    private void verificarVizinhas(int inicio, int fim, int novaCor, FilaInteiros vizinhas) {
+        int indice = inicio;
+        while (indice < fim) {
+            int rotulo = rotulos.get(indice);
+            verificarVizinha(indice, novaCor, vizinhas);
+            indice++;
+            while (indice < fim && rotulos.get(indice) == rotulo) {
+                indice++;
+            }
+        }
+    }
+    
+    private void verificarVizinha(int indice, int novaCor, FilaInteiros vizinhas) {
+        int vizinha = raiz(pai, rotulos.get(indice));
+        if (marca[vizinha] != rodada) {
+            marca[vizinha] = rodada;
+            if (cor[vizinha] == novaCor) {
+                vizinhas.enfileirar(vizinha);
+            }
+        }
+    }
+    
+    /**
+     * Une duas regiões (a menor fica sob a maior) e devolve a raiz resultante
+     */
+    private int unirRegioes(int a, int b) {
+        if (area[a] < area[b]) {
+            int troca = a;
+            a = b;
+            b = troca;
+        }
+        pai[b] = a;
+        area[a] += area[b];
+        proximaSequencia[ultima[a]] = primeira[b];
+        ultima[a] = ultima[b];
+        primeira[b] = -1;
+        numeroRegioes--;
+        return a;
+    }
+    
+    private static int raiz(int[] pai, int i) {
+        while (pai[i] != i) {
+            pai[i] = pai[pai[i]];
+            i = pai[i];
+        }
+        return i;
+    }
+    
+    private static void unir(int[] pai, int a, int b) {
+        int ra = raiz(pai, a);
+        int rb = raiz(pai, b);
+        if (ra != rb) {
+            // A raiz é sempre a sequência mais antiga, para numerar as regiões na ordem da imagem
+            if (ra < rb) {
+                pai[rb] = ra;
+            } else {
+                pai[ra] = rb;
+            }
+        }
+    }
+}
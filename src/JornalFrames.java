@@ -0,0 +1,184 @@
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import estruturas.ConjuntoBits;
+
+/**
+ * Armazena os frames como um jornal de alterações
+ * 
+ * Guarda a imagem inicial e, para cada frame seguinte, apenas as sequências de
+ * pixels que mudaram desde o frame anterior, como trios (início, comprimento, cor).
+ * Os frames completos são reconstruídos sob demanda em obterFrame, aplicando as
+ * alterações a partir do último frame reconstruído.
+ * 
+ * Os pixels alterados não são descobertos comparando imagens: o FloodFill avisa
+ * cada pixel ou sequência que pinta (registrarAlteracao), o jornal os marca num
+ * conjunto de bits e, no frame seguinte, lê a cor atual só dos pixels marcados.
+ * Capturar um frame custa o que foi pintado desde o anterior, e a memória usada
+ * é a da imagem inicial, a de uma imagem reconstruída, um bit por pixel e o
+ * volume de alterações, independente do número de frames. Por isso o jornal deve
+ * receber a própria imagem do preenchimento, e não cópias dela (como as do
+ * DestinoFramesAssincrono), junto com os avisos de alteração.
+ * 
+ * As imagens são cópias do RasterARGB da imagem recebida, então ficam fora
+ * do heap quando a imagem do FloodFill está fora dele (RasterForaDoHeap).
+ */
+public class JornalFrames implements ArmazenamentoFrames {
+    private int largura;
+    private int altura;
+    private BufferedImage acompanhada;
+    private RasterARGB inicial;
+    
+    // Pixels pintados desde o último frame, entre menorAlterado e maiorAlterado
+    private ConjuntoBits alterados;
+    private int menorAlterado;
+    private int maiorAlterado;
+    
+    // Trios (início, comprimento, cor) de todas as alterações, em ordem
+    private int[] alteracoes;
+    private int tamanhoAlteracoes;
+    
+    // Posição em alteracoes onde termina cada frame
+    private int[] fimDoFrame;
+    private int numeroFrames;
+    
+    // Frame reconstruído mais recentemente, reutilizado entre chamadas de obterFrame
+    private RasterARGB reconstruido;
+    private int indiceReconstruido;
+    
+    public JornalFrames() {
+        this.alteracoes = new int[3 * 64];
+        this.tamanhoAlteracoes = 0;
+        this.fimDoFrame = new int[16];
+        this.numeroFrames = 0;
+        this.menorAlterado = Integer.MAX_VALUE;
+        this.maiorAlterado = -1;
+        this.indiceReconstruido = -1;
+    }
+    
+    @Override
+    public void adicionarFrame(BufferedImage imagem) {
+        if (numeroFrames == 0) {
+            largura = imagem.getWidth();
+            altura = imagem.getHeight();
+            acompanhada = imagem;
+            inicial = RasterARGB.de(imagem).copiar();
+            alterados = new ConjuntoBits(inicial.getTamanho());
+        } else if (imagem != acompanhada) {
+            throw new IllegalArgumentException("O jornal de frames deve receber sempre a mesma imagem, "
+                    + "a que está sendo preenchida, e não cópias dela");
+        } else {
+            registrarAlteracoes(RasterARGB.de(imagem));
+        }
+        
+        if (numeroFrames == fimDoFrame.length) {
+            fimDoFrame = Arrays.copyOf(fimDoFrame, numeroFrames * 2);
+        }
+        fimDoFrame[numeroFrames++] = tamanhoAlteracoes;
+    }
+    
+    /**
+     * Marca os pixels de [inicio, fim) para o próximo frame
+     * Os avisos anteriores ao primeiro frame são ignorados: ele guarda a imagem inteira
+     */
+    @Override
+    public void registrarAlteracao(int inicio, int fim) {
+        if (alterados == null) {
+            return;
+        }
+        if (fim - inicio == 1) {
+            alterados.marcar(inicio);
+        } else {
+            alterados.marcarIntervalo(inicio, fim);
+        }
+        menorAlterado = Math.min(menorAlterado, inicio);
+        maiorAlterado = Math.max(maiorAlterado, fim - 1);
+    }
+    
+    @Override
+    public boolean recebeAlteracoes() {
+        return true;
+    }
+    
+    /**
+     * Registra cada sequência de pixels marcados que têm a mesma cor na imagem atual
+     * e desmarca os pixels para o próximo frame
+     */
+    private void registrarAlteracoes(RasterARGB atual) {
+        if (menorAlterado > maiorAlterado) {
+            return;
+        }
+        int limite = maiorAlterado + 1;
+        int inicio = alterados.proximoMarcado(menorAlterado, limite);
+        while (inicio < limite) {
+            int fimMarcados = alterados.proximoDesmarcado(inicio, limite);
+            while (inicio < fimMarcados) {
+                int cor = atual.get(inicio);
+                int fim = inicio + 1;
+                while (fim < fimMarcados && atual.get(fim) == cor) {
+                    fim++;
+                }
+                adicionarAlteracao(inicio, fim - inicio, cor);
+                inicio = fim;
+            }
+            inicio = alterados.proximoMarcado(fimMarcados, limite);
+        }
+        alterados.desmarcarIntervalo(menorAlterado, limite);
+        menorAlterado = Integer.MAX_VALUE;
+        maiorAlterado = -1;
+    }
+    
+    private void adicionarAlteracao(int inicio, int comprimento, int cor) {
+        if (tamanhoAlteracoes + 3 > alteracoes.length) {
+            alteracoes = Arrays.copyOf(alteracoes, alteracoes.length * 2);
+        }
+        alteracoes[tamanhoAlteracoes++] = inicio;
+        alteracoes[tamanhoAlteracoes++] = comprimento;
+        alteracoes[tamanhoAlteracoes++] = cor;
+    }
+    
+    /**
+     * Reconstrói o frame a partir do frame reconstruído anteriormente
+     * (ou da imagem inicial, se o índice pedido for anterior a ele)
+     * A mesma imagem é reutilizada na próxima chamada; copie-a se precisar guardá-la
+     */
+    @Override
+    public BufferedImage obterFrame(int indice) {
+        if (indice < 0 || indice >= numeroFrames) {
+            throw new IndexOutOfBoundsException("Índice inválido: " + indice);
+        }
+        
+        // Voltar no tempo recomeça da imagem inicial, copiada sobre a mesma reconstrução
+        if (reconstruido == null) {
+            reconstruido = inicial.copiar();
+            indiceReconstruido = 0;
+        } else if (indice < indiceReconstruido) {
+            reconstruido.copiarDe(inicial);
+            indiceReconstruido = 0;
+        }
+        
+        int de = fimDoFrame[indiceReconstruido];
+        int ate = fimDoFrame[indice];
+        for (int i = de; i < ate; i += 3) {
+            int inicio = alteracoes[i];
+            reconstruido.preencher(inicio, inicio + alteracoes[i + 1], alteracoes[i + 2]);
+        }
+        indiceReconstruido = indice;
+        return reconstruido.comoImagem();
+    }
+    
+    @Override
+    public int getTamanho() {
+        return numeroFrames;
+    }
+    
+    /**
+     * Memória aproximada usada pelo jornal, em bytes
+     */
+    public long getBytesUsados() {
+        long imagens = inicial == null ? 0 : 4L * inicial.getTamanho() + inicial.getTamanho() / 8;
+        if (reconstruido != null) {
+            imagens += 4L * reconstruido.getTamanho();
+        }
+        return imagens + 4L * alteracoes.length + 4L * fimDoFrame.length;
+    }
+}
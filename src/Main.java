@@ -1,7 +1,9 @@
 import java.awt.Color;
 import java.io.IOException;
 import java.util.Scanner;
+import estruturas.PoliticaFilaFrames;
 import estruturas.TipoAlgoritmo;
+import estruturas.TipoTolerancia;
 
 /**
  * Classe principal da aplicação Flood Fill
@@ -41,6 +43,10 @@ public class Main {
 
             // 6. Selecionar cor de preenchimento
             Color novaCor = selecionarCor();
+            
+            // Tolerância: 0 preenche só a cor exata; acima disso aceita cores parecidas
+            int tolerancia = solicitarTolerancia();
+            TipoTolerancia tipoTolerancia = tolerancia > 0 ? selecionarTipoTolerancia() : TipoTolerancia.POR_CANAL;
 
             // 7. Selecionar coordenadas
             int[] coordenadas = selecionarCoordenadas(floodFill);
@@ -54,25 +60,38 @@ public class Main {
 
             // 8. Confirmar execução
             if (confirmarExecucao()) {
-                System.out.println("Executando flood fill...");
-
-                long tempoInicio = System.currentTimeMillis();
-                floodFill.executarFloodFill(x, y, novaCor);
-                long tempoFim = System.currentTimeMillis();
-
-                System.out.printf("Flood fill concluído em %d ms%n", (tempoFim - tempoInicio));
-                System.out.println("Número de frames gerados: " + floodFill.getNumeroFrames());
-
-                // 9. Salvar frames
-                String pastaFrames = "frames";
-                floodFill.salvarFrames(pastaFrames);
-
-                // 9. Gerar GIF
+                // 9. Configurar GIF antes do preenchimento: os frames vão direto para o GIF
                 String nomeGIF = solicitarNomeGIF();
                 int delayGIF = solicitarDelayGIF();
+                
+                DestinoGIF gif = new DestinoGIF(nomeGIF, delayGIF, true, true);
+                gif.setApenasRegiaoAlterada(true);
+                // Paleta fixa: cores da imagem original mais a cor de preenchimento
+                gif.setPaletaGlobal(novaCor.getRGB());
+                gif.setMetricas(floodFill.getMetricas());
+                DestinoFrames destino = gif;
+                if (solicitarSalvarPNG()) {
+                    destino = new DestinoFramesMultiplo(destino, new DestinoPNG("frames"));
+                }
+                // A codificação acontece em outra thread, em paralelo com o preenchimento
+                destino = new DestinoFramesAssincrono(destino, 8, PoliticaFilaFrames.BLOQUEAR);
+                floodFill.setDestinoFrames(destino);
+
+                System.out.println("Executando flood fill e gerando GIF...");
 
-                System.out.println("Gerando GIF...");
-                GeradorGIF.gerarGIF(pastaFrames, nomeGIF, delayGIF);
+                try {
+                    long tempoInicio = System.currentTimeMillis();
+                    floodFill.executarFloodFill(x, y, novaCor, tolerancia, tipoTolerancia);
+                    long tempoFim = System.currentTimeMillis();
+
+                    System.out.printf("Flood fill concluído em %d ms%n", (tempoFim - tempoInicio));
+                    System.out.println("Número de frames gerados: " + floodFill.getNumeroFrames());
+                } finally {
+                    // Encerra a thread de codificação e fecha o GIF mesmo se o preenchimento falhar
+                    destino.fechar();
+                }
+                // Depois de fechar o destino, para incluir o tempo de todos os quadros do GIF
+                System.out.println("Métricas: " + floodFill.getMetricas());
 
                 System.out.println("Processo concluído com sucesso!");
             } else {
@@ -96,14 +115,18 @@ public class Main {
         System.out.println("\nSelecione o tipo de algoritmo de flood fill:");
         System.out.println("1 - " + TipoAlgoritmo.FILA_BFS.getDescricao());
         System.out.println("2 - " + TipoAlgoritmo.PILHA_DFS.getDescricao());
+        System.out.println("3 - " + TipoAlgoritmo.SCANLINE.getDescricao());
+        System.out.println("4 - " + TipoAlgoritmo.PARALELO.getDescricao());
         System.out.println();
         System.out.println("Diferenças:");
         System.out.println("• Fila (BFS): Preenche de forma mais uniforme, espalhando em todas as direções");
         System.out.println("• Pilha (DFS): Preenche seguindo caminhos mais profundos, criando padrões diferentes");
+        System.out.println("• Scanline: Preenche linhas horizontais inteiras, ideal para imagens grandes");
+        System.out.println("• Paralelo: Divide a imagem em blocos preenchidos ao mesmo tempo, para imagens muito grandes");
         
         while (true) {
             try {
-                System.out.print("Escolha uma opção (1-2): ");
+                System.out.print("Escolha uma opção (1-4): ");
                 int opcao = Integer.parseInt(scanner.nextLine().trim());
                 
                 switch (opcao) {
@@ -113,8 +136,14 @@ public class Main {
                     case 2:
                         System.out.println("Algoritmo selecionado: " + TipoAlgoritmo.PILHA_DFS.getDescricao());
                         return TipoAlgoritmo.PILHA_DFS;
+                    case 3:
+                        System.out.println("Algoritmo selecionado: " + TipoAlgoritmo.SCANLINE.getDescricao());
+                        return TipoAlgoritmo.SCANLINE;
+                    case 4:
+                        System.out.println("Algoritmo selecionado: " + TipoAlgoritmo.PARALELO.getDescricao());
+                        return TipoAlgoritmo.PARALELO;
                     default:
-                        System.out.println("Opção inválida. Digite 1 ou 2.");
+                        System.out.println("Opção inválida. Digite um número de 1 a 4.");
                 }
             } catch (NumberFormatException e) {
                 System.out.println("Por favor, digite um número válido.");
@@ -133,27 +162,28 @@ public class Main {
     
     private static int solicitarIntervaloPorFrame(FloodFill floodFill) {
         int totalPixels = floodFill.getLargura() * floodFill.getAltura();
-        int intervaloMinimo = Math.max(totalPixels / 500, 50); // Garante máximo 100 frames e mínimo 100 pixels
+        int intervaloPadrao = Math.max(totalPixels / 500, 50); // Em torno de 500 frames para a região inteira
         
+        // Os frames vão direto para o GIF, sem ficar guardados; intervalos menores
+        // apenas geram mais frames para codificar e um GIF maior
         System.out.printf("Total de pixels da imagem: %d%n", totalPixels);
-        System.out.printf("Intervalo mínimo recomendado para evitar out of memory: %d pixels%n", intervaloMinimo);
+        System.out.printf("Intervalo recomendado: %d pixels%n", intervaloPadrao);
         
         while (true) {
             try {
-                System.out.printf("A cada quantos pixels salvar um frame? (mínimo: %d, padrão: %d): ", 
-                                 intervaloMinimo, intervaloMinimo);
+                System.out.printf("A cada quantos pixels salvar um frame? (mínimo: 1, padrão: %d): ", 
+                                 intervaloPadrao);
                 String input = scanner.nextLine().trim();
                 
                 if (input.isEmpty()) {
-                    return intervaloMinimo; // valor padrão seguro
+                    return intervaloPadrao; // valor padrão
                 }
                 
                 int intervalo = Integer.parseInt(input);
-                if (intervalo >= intervaloMinimo) {
+                if (intervalo >= 1) {
                     return intervalo;
                 } else {
-                    System.out.printf("Por favor, digite um número maior ou igual a %d para evitar problemas de memória.%n", 
-                                     intervaloMinimo);
+                    System.out.println("Por favor, digite um número positivo.");
                 }
             } catch (NumberFormatException e) {
                 System.out.println("Por favor, digite um número válido.");
@@ -185,6 +215,50 @@ public class Main {
         }
     }
     
+    private static int solicitarTolerancia() {
+        while (true) {
+            try {
+                System.out.print("\nTolerância de cor, de 0 a 255 (0 = apenas a cor exata, padrão: 0): ");
+                String input = scanner.nextLine().trim();
+                
+                if (input.isEmpty()) {
+                    return 0; // valor padrão
+                }
+                
+                int tolerancia = Integer.parseInt(input);
+                if (tolerancia >= 0 && tolerancia <= 255) {
+                    return tolerancia;
+                } else {
+                    System.out.println("Por favor, digite um número de 0 a 255.");
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Por favor, digite um número válido.");
+            }
+        }
+    }
+    
+    private static TipoTolerancia selecionarTipoTolerancia() {
+        System.out.println("Como medir a diferença entre as cores:");
+        System.out.println("1 - " + TipoTolerancia.POR_CANAL.getDescricao());
+        System.out.println("2 - " + TipoTolerancia.EUCLIDIANA.getDescricao());
+        
+        while (true) {
+            try {
+                System.out.print("Escolha uma opção (1-2): ");
+                int opcao = Integer.parseInt(scanner.nextLine().trim());
+                
+                switch (opcao) {
+                    case 1: return TipoTolerancia.POR_CANAL;
+                    case 2: return TipoTolerancia.EUCLIDIANA;
+                    default:
+                        System.out.println("Opção inválida. Digite 1 ou 2.");
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Por favor, digite um número válido.");
+            }
+        }
+    }
+    
     private static int[] selecionarCoordenadas(FloodFill floodFill) {
         int largura = floodFill.getLargura();
         int altura = floodFill.getAltura();
@@ -233,6 +307,20 @@ public class Main {
         return nome.isEmpty() ? "resultado.gif" : nome + ".gif";
     }
     
+    private static boolean solicitarSalvarPNG() {
+        while (true) {
+            System.out.print("Salvar também os frames em PNG na pasta frames? (s/n, padrão: n): ");
+            String resposta = scanner.nextLine().trim().toLowerCase();
+            if (resposta.isEmpty() || resposta.equals("n")) {
+                return false;
+            } else if (resposta.equals("s")) {
+                return true;
+            } else {
+                System.out.println("Por favor, responda apenas com 's' para sim ou 'n' para não.");
+            }
+        }
+    }
+    
     private static int solicitarDelayGIF() {
         while (true) {
             try {
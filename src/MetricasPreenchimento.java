@@ -0,0 +1,192 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Métricas acumuladas pelos preenchimentos de um FloodFill
+ * 
+ * Cobre a vazão (pixels pintados por segundo), o uso da fila ou pilha do
+ * algoritmo (inserções e profundidade máxima) e o custo dos frames capturados
+ * (tempo e bytes alocados em salvarFrameAtual). Os mesmos números também saem
+ * como eventos do Java Flight Recorder (pacote eventos).
+ * 
+ * Um DestinoGIF ligado por setMetricas() soma também o tempo de escrita de
+ * cada quadro do GIF; como ele pode rodar em outra thread (DestinoFramesAssincrono),
+ * esses números são sincronizados.
+ * 
+ * Os algoritmos paralelo e pelo índice de regiões não usam uma fila ou pilha
+ * única, então não somam inserções nem profundidade.
+ */
+public class MetricasPreenchimento {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean MEDE_ALOCACAO = medeAlocacao();
+    
+    private int preenchimentos;
+    private long pixelsPintados;
+    private long nanosPreenchimento;
+    private long inseridos;
+    private int profundidadeMaxima;
+    private int frames;
+    private long nanosFrames;
+    private long bytesFrames;
+    private long maiorNanosFrame;
+    private int quadrosGIF;
+    private long nanosQuadrosGIF;
+    private long maiorNanosQuadroGIF;
+    
+    void registrarPreenchimento(long pixels, long nanos) {
+        preenchimentos++;
+        pixelsPintados += pixels;
+        nanosPreenchimento += nanos;
+    }
+    
+    void registrarEstrutura(long inseridosNaEstrutura, int profundidade) {
+        inseridos += inseridosNaEstrutura;
+        profundidadeMaxima = Math.max(profundidadeMaxima, profundidade);
+    }
+    
+    void registrarFrame(long nanos, long bytes) {
+        frames++;
+        nanosFrames += nanos;
+        bytesFrames += bytes;
+        maiorNanosFrame = Math.max(maiorNanosFrame, nanos);
+    }
+    
+    synchronized void registrarQuadrosGIF(int quadros, long nanos, long maiorNanos) {
+        quadrosGIF += quadros;
+        nanosQuadrosGIF += nanos;
+        maiorNanosQuadroGIF = Math.max(maiorNanosQuadroGIF, maiorNanos);
+    }
+    
+    /**
+     * Bytes alocados até agora pela thread atual, ou 0 se a JVM não informa
+     */
+    static long bytesAlocadosNaThread() {
+        if (!MEDE_ALOCACAO) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+    private static boolean medeAlocacao() {
+        try {
+            return THREADS instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+        } catch (LinkageError | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+    
+    public int getPreenchimentos() {
+        return preenchimentos;
+    }
+    
+    public long getPixelsPintados() {
+        return pixelsPintados;
+    }
+    
+    /**
+     * Tempo total dentro de executarFloodFill, frames incluídos
+     */
+    public long getNanosPreenchimento() {
+        return nanosPreenchimento;
+    }
+    
+    public double getPixelsPorSegundo() {
+        return nanosPreenchimento == 0 ? 0 : pixelsPintados * 1e9 / nanosPreenchimento;
+    }
+    
+    /**
+     * Inserções na fila ou pilha dos algoritmos
+     */
+    public long getInseridos() {
+        return inseridos;
+    }
+    
+    /**
+     * Inserções por pixel pintado: 1 na fila (BFS) e na pilha (DFS), bem menos no scanline
+     */
+    public double getInseridosPorPixel() {
+        return pixelsPintados == 0 ? 0 : (double) inseridos / pixelsPintados;
+    }
+    
+    /**
+     * Maior número de elementos na fila ou pilha ao mesmo tempo, entre todos os preenchimentos
+     */
+    public int getProfundidadeMaxima() {
+        return profundidadeMaxima;
+    }
+    
+    public int getFrames() {
+        return frames;
+    }
+    
+    /**
+     * Tempo total em salvarFrameAtual (envio dos frames ao destino)
+     */
+    public long getNanosFrames() {
+        return nanosFrames;
+    }
+    
+    public long getMaiorNanosFrame() {
+        return maiorNanosFrame;
+    }
+    
+    /**
+     * Bytes alocados na thread do preenchimento durante o envio dos frames
+     * (0 se a JVM não informa a alocação por thread)
+     */
+    public long getBytesFrames() {
+        return bytesFrames;
+    }
+    
+    /**
+     * Quadros escritos no GIF pelo DestinoGIF ligado a estas métricas
+     */
+    public synchronized int getQuadrosGIF() {
+        return quadrosGIF;
+    }
+    
+    /**
+     * Soma do tempo de cada quadro do GIF, do envio ao escritor até a escrita no arquivo
+     */
+    public synchronized long getNanosQuadrosGIF() {
+        return nanosQuadrosGIF;
+    }
+    
+    public synchronized long getMaiorNanosQuadroGIF() {
+        return maiorNanosQuadroGIF;
+    }
+    
+    /**
+     * Zera todas as métricas
+     */
+    public synchronized void zerar() {
+        preenchimentos = 0;
+        pixelsPintados = 0;
+        nanosPreenchimento = 0;
+        inseridos = 0;
+        profundidadeMaxima = 0;
+        frames = 0;
+        nanosFrames = 0;
+        bytesFrames = 0;
+        maiorNanosFrame = 0;
+        quadrosGIF = 0;
+        nanosQuadrosGIF = 0;
+        maiorNanosQuadroGIF = 0;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        String texto = String.format("%d preenchimentos, %d pixels em %.1f ms (%.0f pixels/s), "
+                        + "%d inserções (%.2f por pixel, profundidade máxima %d), "
+                        + "%d frames em %.1f ms (maior %.2f ms, %d bytes alocados)",
+                preenchimentos, pixelsPintados, nanosPreenchimento / 1e6, getPixelsPorSegundo(),
+                inseridos, getInseridosPorPixel(), profundidadeMaxima,
+                frames, nanosFrames / 1e6, maiorNanosFrame / 1e6, bytesFrames);
+        if (quadrosGIF > 0) {
+            texto += String.format(", %d quadros do GIF (%.2f ms em média, maior %.2f ms)",
+                    quadrosGIF, nanosQuadrosGIF / 1e6 / quadrosGIF, maiorNanosQuadroGIF / 1e6);
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,139 @@
+import java.awt.image.BufferedImage;
+import estruturas.MapaInteiros;
+
+/**
+ * Paleta fixa de até 256 cores, usada como tabela global de um GIF
+ * 
+ * Num flood fill, os frames só contêm as cores da imagem original mais as cores
+ * de preenchimento. A paleta é montada uma única vez a partir delas e todas as
+ * cores conhecidas já ficam mapeadas para seu índice, então cada frame é
+ * convertido com uma consulta por pixel, sem quantização. Se houver mais de 256
+ * cores, as da imagem são reduzidas por corte mediano e as de preenchimento
+ * são mantidas exatas.
+ * 
+ * Depois de criada, a paleta só é lida, então pode ser usada por várias threads.
+ */
+public class PaletaGIF {
+    private final int[] cores;
+    private final int bits;
+    private final MapaInteiros indices;
+    
+    private PaletaGIF(int[] cores, MapaInteiros indices) {
+        this.cores = cores;
+        this.indices = indices;
+        int b = 1;
+        while ((1 << b) < cores.length) {
+            b++;
+        }
+        this.bits = b;
+    }
+    
+    /**
+     * Cria a paleta a partir das cores da imagem e das cores de preenchimento
+     */
+    public static PaletaGIF criar(BufferedImage imagem, int... coresPreenchimento) {
+        int largura = imagem.getWidth();
+        int[] pixels = imagem.getType() == BufferedImage.TYPE_INT_ARGB
+                ? ImagemARGB.pixels(imagem)
+                : imagem.getRGB(0, 0, largura, imagem.getHeight(), null, 0, largura);
+        
+        // Cores distintas da imagem, com as de preenchimento primeiro
+        MapaInteiros distintas = new MapaInteiros(1024);
+        int[] extras = new int[coresPreenchimento.length];
+        int numeroExtras = 0;
+        for (int cor : coresPreenchimento) {
+            int rgb = cor & 0xFFFFFF;
+            if (distintas.obter(rgb) < 0) {
+                distintas.colocar(rgb, distintas.getTamanho());
+                extras[numeroExtras++] = rgb;
+            }
+        }
+        int[] histograma = new int[1 << 15];
+        int[] coresImagem = new int[256];
+        int numeroCoresImagem = 0;
+        for (int pixel : pixels) {
+            int rgb = pixel & 0xFFFFFF;
+            histograma[CodificadorGIF.reduzir(rgb)]++;
+            if (distintas.obter(rgb) < 0) {
+                if (numeroCoresImagem < coresImagem.length) {
+                    coresImagem[numeroCoresImagem] = rgb;
+                }
+                numeroCoresImagem++;
+                distintas.colocar(rgb, distintas.getTamanho());
+            }
+        }
+        
+        if (numeroExtras + numeroCoresImagem <= 256) {
+            // Cabe tudo: paleta exata
+            int[] cores = new int[Math.max(numeroExtras + numeroCoresImagem, 1)];
+            System.arraycopy(extras, 0, cores, 0, numeroExtras);
+            System.arraycopy(coresImagem, 0, cores, numeroExtras, numeroCoresImagem);
+            MapaInteiros mapa = new MapaInteiros(cores.length);
+            for (int i = 0; i < numeroExtras + numeroCoresImagem; i++) {
+                mapa.colocar(cores[i], i);
+            }
+            return new PaletaGIF(cores, mapa);
+        }
+        
+        // Reduz as cores da imagem para as vagas que sobram depois das de preenchimento
+        int[] reduzidas = CorteMediano.criarPaleta(histograma, 256 - numeroExtras);
+        int[] cores = new int[numeroExtras + reduzidas.length];
+        System.arraycopy(extras, 0, cores, 0, numeroExtras);
+        System.arraycopy(reduzidas, 0, cores, numeroExtras, reduzidas.length);
+        
+        // Mapeia antecipadamente todas as cores conhecidas para o índice mais próximo
+        MapaInteiros mapa = new MapaInteiros(distintas.getTamanho());
+        for (int i = 0; i < numeroExtras; i++) {
+            mapa.colocar(extras[i], i);
+        }
+        int[] porCorReduzida = new int[1 << 15];
+        java.util.Arrays.fill(porCorReduzida, -1);
+        for (int pixel : pixels) {
+            int rgb = pixel & 0xFFFFFF;
+            if (mapa.obter(rgb) < 0) {
+                int reduzida = CodificadorGIF.reduzir(rgb);
+                if (porCorReduzida[reduzida] < 0) {
+                    porCorReduzida[reduzida] = CodificadorGIF.maisProxima(cores, CodificadorGIF.expandir(reduzida));
+                }
+                mapa.colocar(rgb, porCorReduzida[reduzida]);
+            }
+        }
+        return new PaletaGIF(cores, mapa);
+    }
+    
+    /**
+     * Índice da cor na paleta (o canal alfa é ignorado)
+     * Cores que não estavam na imagem nem no preenchimento usam a cor mais próxima
+     */
+    public int indice(int argb) {
+        int rgb = argb & 0xFFFFFF;
+        int indice = indices.obter(rgb);
+        if (indice < 0) {
+            indice = CodificadorGIF.maisProxima(cores, rgb);
+        }
+        return indice;
+    }
+    
+    /**
+     * Converte pixels ARGB para índices da paleta
+     */
+    public void mapear(int[] pixels, int inicio, int quantidade, byte[] destino, int inicioDestino) {
+        for (int i = 0; i < quantidade; i++) {
+            destino[inicioDestino + i] = (byte) indice(pixels[inicio + i]);
+        }
+    }
+    
+    /**
+     * Cores da paleta em RGB de 24 bits
+     */
+    public int[] getCores() {
+        return cores;
+    }
+    
+    /**
+     * Número de bits por índice (tamanho da tabela = 2^bits)
+     */
+    public int getBits() {
+        return bits;
+    }
+}
@@ -0,0 +1,261 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import estruturas.PilhaInteiros;
+
+/**
+ * Flood fill paralelo por blocos
+ * 
+ * A imagem é dividida em blocos retangulares. Em cada rodada, todos os blocos
+ * com sementes pendentes são preenchidos em paralelo num ForkJoinPool, usando
+ * scanline restrito aos limites do bloco. Sequências que tocam a borda de um bloco
+ * geram sementes para o bloco vizinho, processadas na rodada seguinte. O processo
+ * termina quando nenhuma rodada gera novas sementes, e o conjunto de pixels
+ * pintados é o mesmo do flood fill sequencial.
+ * 
+ * Cada tarefa só escreve e lê pixels do próprio bloco, então não há disputa entre threads.
+ */
+public class PreenchimentoParalelo {
+    private static final int TAMANHO_BLOCO = 256;
+    
+    private final RasterARGB pixels;
+    private final int largura;
+    private final int altura;
+    private final ForkJoinPool pool;
+    private final int blocosPorLinha;
+    private final int blocosPorColuna;
+    
+    public PreenchimentoParalelo(RasterARGB pixels) {
+        this(pixels, ForkJoinPool.commonPool());
+    }
+    
+    public PreenchimentoParalelo(RasterARGB pixels, ForkJoinPool pool) {
+        this.pixels = pixels;
+        this.largura = pixels.getLargura();
+        this.altura = pixels.getAltura();
+        this.pool = pool;
+        this.blocosPorLinha = (largura + TAMANHO_BLOCO - 1) / TAMANHO_BLOCO;
+        this.blocosPorColuna = (altura + TAMANHO_BLOCO - 1) / TAMANHO_BLOCO;
+    }
+    
+    /**
+     * Recebe as sequências pintadas, [inicio, fim] de uma mesma linha
+     */
+    public interface RegistroSequencias {
+        void pintada(int inicio, int fim);
+    }
+    
+    /**
+     * Executa o preenchimento a partir de (x, y)
+     * 
+     * @param aoFimDaRodada Recebe o número de pixels pintados em cada rodada
+     * @return Total de pixels pintados
+     */
+    public long executar(int x, int y, int corOriginal, int novaCor, IntConsumer aoFimDaRodada) {
+        return executar(x, y, corOriginal, novaCor, aoFimDaRodada, null);
+    }
+    
+    /**
+     * Como executar(x, y, corOriginal, novaCor, aoFimDaRodada), informando também
+     * cada sequência pintada; o registro é chamado na thread que executa o
+     * preenchimento, ao fim de cada rodada, antes de aoFimDaRodada
+     */
+    public long executar(int x, int y, int corOriginal, int novaCor, IntConsumer aoFimDaRodada,
+                         RegistroSequencias registro) {
+        int totalBlocos = blocosPorLinha * blocosPorColuna;
+        
+        // Sementes pendentes de cada bloco, como pares (início, fim) de trechos de uma mesma linha
+        PilhaInteiros[] pendentes = new PilhaInteiros[totalBlocos];
+        int indiceInicial = y * largura + x;
+        adicionarTrecho(pendentes, indiceInicial, indiceInicial);
+        
+        long totalPintados = 0;
+        while (true) {
+            int ativos = 0;
+            for (PilhaInteiros p : pendentes) {
+                if (p != null) ativos++;
+            }
+            if (ativos == 0) {
+                break;
+            }
+            
+            Bloco[] blocos = new Bloco[ativos];
+            int n = 0;
+            for (int b = 0; b < totalBlocos; b++) {
+                if (pendentes[b] != null) {
+                    blocos[n++] = new Bloco(b, pendentes[b], corOriginal, novaCor, registro != null);
+                    pendentes[b] = null;
+                }
+            }
+            
+            pool.invoke(new RodadaBlocos(blocos, 0, blocos.length));
+            
+            // Repassa as sementes de borda para os blocos vizinhos
+            int pintadosNaRodada = 0;
+            for (Bloco bloco : blocos) {
+                pintadosNaRodada += bloco.pintados;
+                if (registro != null) {
+                    PilhaInteiros pintadas = bloco.pintadas;
+                    while (!pintadas.estaVazia()) {
+                        int fim = pintadas.desempilhar();
+                        registro.pintada(pintadas.desempilhar(), fim);
+                    }
+                }
+                PilhaInteiros saidas = bloco.saidas;
+                while (!saidas.estaVazia()) {
+                    int fim = saidas.desempilhar();
+                    int inicio = saidas.desempilhar();
+                    adicionarTrecho(pendentes, inicio, fim);
+                }
+            }
+            totalPintados += pintadosNaRodada;
+            aoFimDaRodada.accept(pintadosNaRodada);
+        }
+        return totalPintados;
+    }
+    
+    private int blocoDe(int indice) {
+        int px = indice % largura;
+        int py = indice / largura;
+        return (py / TAMANHO_BLOCO) * blocosPorLinha + px / TAMANHO_BLOCO;
+    }
+    
+    private void adicionarTrecho(PilhaInteiros[] pendentes, int inicio, int fim) {
+        int b = blocoDe(inicio);
+        if (pendentes[b] == null) {
+            pendentes[b] = new PilhaInteiros();
+        }
+        pendentes[b].empilhar(inicio);
+        pendentes[b].empilhar(fim);
+    }
+    
+    /**
+     * Divide a lista de blocos ativos recursivamente entre as threads do pool
+     */
+    private static class RodadaBlocos extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final Bloco[] blocos;
+        private final int de;
+        private final int ate;
+        
+        RodadaBlocos(Bloco[] blocos, int de, int ate) {
+            this.blocos = blocos;
+            this.de = de;
+            this.ate = ate;
+        }
+        
+        @Override
+        protected void compute() {
+            if (ate - de == 1) {
+                blocos[de].preencher();
+                return;
+            }
+            int meio = (de + ate) >>> 1;
+            invokeAll(new RodadaBlocos(blocos, de, meio), new RodadaBlocos(blocos, meio, ate));
+        }
+    }
+    
+    /**
+     * Preenchimento scanline de um único bloco em uma rodada
+     */
+    private class Bloco {
+        private final PilhaInteiros entradas;
+        private final PilhaInteiros saidas;
+        private final PilhaInteiros pintadas;
+        private final int corOriginal;
+        private final int novaCor;
+        private final int x0, x1, y0, y1;
+        private int pintados;
+        
+        Bloco(int numero, PilhaInteiros entradas, int corOriginal, int novaCor, boolean registrar) {
+            this.entradas = entradas;
+            this.saidas = new PilhaInteiros();
+            this.pintadas = registrar ? new PilhaInteiros() : null;
+            this.corOriginal = corOriginal;
+            this.novaCor = novaCor;
+            this.x0 = (numero % blocosPorLinha) * TAMANHO_BLOCO;
+            this.y0 = (numero / blocosPorLinha) * TAMANHO_BLOCO;
+            this.x1 = Math.min(x0 + TAMANHO_BLOCO, largura) - 1;
+            this.y1 = Math.min(y0 + TAMANHO_BLOCO, altura) - 1;
+        }
+        
+        void preencher() {
+            // Converte os trechos recebidos em sementes, uma por sequência da cor original
+            PilhaInteiros sementes = new PilhaInteiros();
+            while (!entradas.estaVazia()) {
+                int fim = entradas.desempilhar();
+                int inicio = entradas.desempilhar();
+                empilharSequencias(sementes, inicio, fim);
+            }
+            
+            while (!sementes.estaVazia()) {
+                int semente = sementes.desempilhar();
+                if (pixels.get(semente) != corOriginal) {
+                    continue;
+                }
+                
+                int py = semente / largura;
+                int inicioLinha = py * largura;
+                int inicio = semente - inicioLinha;
+                int fim = inicio;
+                while (inicio > x0 && pixels.get(inicioLinha + inicio - 1) == corOriginal) {
+                    inicio--;
+                }
+                while (fim < x1 && pixels.get(inicioLinha + fim + 1) == corOriginal) {
+                    fim++;
+                }
+                
+                pixels.preencher(inicioLinha + inicio, inicioLinha + fim + 1, novaCor);
+                pintados += fim - inicio + 1;
+                if (pintadas != null) {
+                    pintadas.empilhar(inicioLinha + inicio);
+                    pintadas.empilhar(inicioLinha + fim);
+                }
+                
+                // Vizinhos à esquerda e à direita fora do bloco
+                if (inicio == x0 && x0 > 0) {
+                    saidas.empilhar(inicioLinha + x0 - 1);
+                    saidas.empilhar(inicioLinha + x0 - 1);
+                }
+                if (fim == x1 && x1 < largura - 1) {
+                    saidas.empilhar(inicioLinha + x1 + 1);
+                    saidas.empilhar(inicioLinha + x1 + 1);
+                }
+                
+                // Linhas vizinhas: dentro do bloco viram sementes, fora dele viram trechos de saída
+                if (py > 0) {
+                    vizinhos(sementes, py - 1, inicio, fim);
+                }
+                if (py < altura - 1) {
+                    vizinhos(sementes, py + 1, inicio, fim);
+                }
+            }
+        }
+        
+        private void vizinhos(PilhaInteiros sementes, int linha, int inicio, int fim) {
+            int inicioLinha = linha * largura;
+            if (linha < y0 || linha > y1) {
+                // Os pixels do outro bloco não são lidos aqui, apenas repassados
+                saidas.empilhar(inicioLinha + inicio);
+                saidas.empilhar(inicioLinha + fim);
+            } else {
+                empilharSequencias(sementes, inicioLinha + inicio, inicioLinha + fim);
+            }
+        }
+        
+        private void empilharSequencias(PilhaInteiros sementes, int inicio, int fim) {
+            boolean dentroDaSequencia = false;
+            for (int indice = inicio; indice <= fim; indice++) {
+                if (pixels.get(indice) == corOriginal) {
+                    if (!dentroDaSequencia) {
+                        sementes.empilhar(indice);
+                        dentroDaSequencia = true;
+                    }
+                } else {
+                    dentroDaSequencia = false;
+                }
+            }
+        }
+    }
+}
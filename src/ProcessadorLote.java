@@ -0,0 +1,235 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import estruturas.Lista;
+
+/**
+ * Modo em lote: executa as tarefas de um manifesto sem interação, várias ao mesmo tempo
+ * 
+ * Uso: java ProcessadorLote manifesto.txt [tarefas simultâneas] [pasta do cache de regiões]
+ * 
+ * Cada linha do manifesto é uma TarefaPreenchimento; linhas vazias e linhas que
+ * começam com '#' são ignoradas. As tarefas rodam em threads virtuais quando a
+ * JVM oferece (Java 21+) ou num pool fixo, sempre limitadas ao número de tarefas
+ * simultâneas. Cada imagem de origem é decodificada uma única vez e compartilhada
+ * pelas tarefas que a usam; ela sai do cache quando a última dessas tarefas termina.
+ * Uma tarefa com erro não interrompe as demais.
+ * 
+ * Com uma pasta de cache, cada tarefa usa o índice de regiões da imagem
+ * (IndiceRegioes), gravado na primeira vez e reaberto nas execuções seguintes.
+ */
+public class ProcessadorLote {
+    private static final int DELAY_GIF = 100;
+    
+    private final int tarefasSimultaneas;
+    private final File pastaCacheRegioes;
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> imagens;
+    private final ConcurrentHashMap<String, AtomicInteger> usosRestantes;
+    
+    public ProcessadorLote(int tarefasSimultaneas) {
+        this(tarefasSimultaneas, null);
+    }
+    
+    /**
+     * @param pastaCacheRegioes Pasta dos índices de regiões gravados (ou null para não usar índice)
+     */
+    public ProcessadorLote(int tarefasSimultaneas, File pastaCacheRegioes) {
+        this.tarefasSimultaneas = tarefasSimultaneas;
+        this.pastaCacheRegioes = pastaCacheRegioes;
+        this.imagens = new ConcurrentHashMap<>();
+        this.usosRestantes = new ConcurrentHashMap<>();
+    }
+    
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Uso: java ProcessadorLote <manifesto> [tarefas simultâneas] [pasta do cache de regiões]");
+            System.exit(2);
+        }
+        int simultaneas = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        
+        try {
+            Lista<TarefaPreenchimento> tarefas = lerManifesto(new File(args[0]));
+            long inicio = System.currentTimeMillis();
+            File pastaCache = args.length > 2 ? new File(args[2]) : null;
+            int falhas = new ProcessadorLote(simultaneas, pastaCache).executar(tarefas);
+            System.out.printf("Lote concluído: %d tarefas, %d com erro, em %d ms%n",
+                    tarefas.getTamanho(), falhas, System.currentTimeMillis() - inicio);
+            System.exit(falhas == 0 ? 0 : 1);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Erro no manifesto: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+    
+    /**
+     * Lê todas as tarefas do manifesto, indicando a linha em caso de erro
+     */
+    public static Lista<TarefaPreenchimento> lerManifesto(File manifesto) throws IOException {
+        List<String> linhas = Files.readAllLines(manifesto.toPath(), StandardCharsets.UTF_8);
+        Lista<TarefaPreenchimento> tarefas = new Lista<>(linhas.size());
+        for (int i = 0; i < linhas.size(); i++) {
+            String linha = linhas.get(i).trim();
+            if (linha.isEmpty() || linha.startsWith("#")) {
+                continue;
+            }
+            try {
+                tarefas.adicionar(TarefaPreenchimento.ler(linha));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("linha " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return tarefas;
+    }
+    
+    /**
+     * Executa as tarefas e espera todas terminarem
+     * @return Número de tarefas que falharam
+     */
+    public int executar(Lista<TarefaPreenchimento> tarefas) {
+        for (TarefaPreenchimento tarefa : tarefas) {
+            usosRestantes.computeIfAbsent(chave(tarefa), c -> new AtomicInteger()).incrementAndGet();
+        }
+        
+        ExecutorService executor = criarExecutor();
+        Semaphore vagas = new Semaphore(tarefasSimultaneas);
+        AtomicInteger falhas = new AtomicInteger();
+        AtomicInteger concluidas = new AtomicInteger();
+        int total = tarefas.getTamanho();
+        for (TarefaPreenchimento tarefa : tarefas) {
+            vagas.acquireUninterruptibly();
+            executor.execute(() -> {
+                long inicio = System.currentTimeMillis();
+                try {
+                    MetricasPreenchimento metricas = executarTarefa(tarefa);
+                    System.out.printf("[%d/%d] %s -> %s (%d ms; %s)%n", concluidas.incrementAndGet(), total,
+                            tarefa.getImagem(), tarefa.getSaida(), System.currentTimeMillis() - inicio, metricas);
+                } catch (Exception e) {
+                    falhas.incrementAndGet();
+                    System.err.printf("[%d/%d] Erro em %s -> %s: %s%n", concluidas.incrementAndGet(), total,
+                            tarefa.getImagem(), tarefa.getSaida(), e.getMessage());
+                } finally {
+                    liberarImagem(tarefa);
+                    vagas.release();
+                }
+            });
+        }
+        
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // continua esperando as tarefas em andamento
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return falhas.get();
+    }
+    
+    private MetricasPreenchimento executarTarefa(TarefaPreenchimento tarefa) throws IOException {
+        FloodFill floodFill = new FloodFill(obterImagem(tarefa), tarefa.getAlgoritmo());
+        floodFill.setIntervaloPorFrame(tarefa.getIntervalo());
+        if (pastaCacheRegioes != null) {
+            floodFill.usarIndiceRegioes(pastaCacheRegioes);
+        }
+        
+        String saida = tarefa.getSaida();
+        String nome = saida.toLowerCase();
+        DestinoFrames destino;
+        if (nome.endsWith(".gif")) {
+            // Com a paleta global o GIF usa o EscritorGIFParalelo, mas com uma única thread
+            // de codificação por tarefa: o paralelismo vem das tarefas
+            DestinoGIF gif = new DestinoGIF(saida, DELAY_GIF, true, false);
+            gif.setApenasRegiaoAlterada(true);
+            gif.setPaletaGlobal(tarefa.getCor().getRGB());
+            gif.setMetricas(floodFill.getMetricas());
+            destino = gif;
+        } else if (nome.endsWith(".png")) {
+            // Só a imagem final interessa: os frames são descartados
+            destino = imagem -> { };
+        } else {
+            destino = new DestinoPNG(saida);
+        }
+        
+        floodFill.setDestinoFrames(destino);
+        try {
+            floodFill.executarFloodFill(tarefa.getX(), tarefa.getY(), tarefa.getCor());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            destino.fechar();
+        }
+        if (nome.endsWith(".png")) {
+            floodFill.salvarImagem(saida);
+        }
+        return floodFill.getMetricas();
+    }
+    
+    /**
+     * Imagem decodificada da tarefa; a primeira tarefa que pede uma imagem a lê
+     * e as demais esperam pelo mesmo resultado
+     */
+    private BufferedImage obterImagem(TarefaPreenchimento tarefa) throws IOException {
+        String chave = chave(tarefa);
+        CompletableFuture<BufferedImage> nova = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> existente = imagens.putIfAbsent(chave, nova);
+        if (existente == null) {
+            try {
+                BufferedImage lida = ImageIO.read(new File(chave));
+                if (lida == null) {
+                    throw new IOException("Formato de imagem não suportado: " + tarefa.getImagem());
+                }
+                nova.complete(ImagemARGB.converter(lida));
+            } catch (IOException | RuntimeException e) {
+                nova.completeExceptionally(e);
+            }
+            existente = nova;
+        }
+        
+        try {
+            return existente.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Erro ao ler " + tarefa.getImagem() + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+    
+    /**
+     * Remove a imagem do cache quando nenhuma tarefa restante precisa dela
+     */
+    private void liberarImagem(TarefaPreenchimento tarefa) {
+        String chave = chave(tarefa);
+        if (usosRestantes.get(chave).decrementAndGet() == 0) {
+            imagens.remove(chave);
+        }
+    }
+    
+    private static String chave(TarefaPreenchimento tarefa) {
+        return new File(tarefa.getImagem()).getAbsolutePath();
+    }
+    
+    /**
+     * Threads virtuais quando disponíveis (Java 21+); senão, um pool fixo
+     */
+    private ExecutorService criarExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(tarefasSimultaneas);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.awt.image.BufferedImage;
+
+/**
+ * Pixels ARGB de uma imagem, indexados por y * largura + x
+ * 
+ * É onde o FloodFill lê e pinta: os algoritmos e a captura de frames usam só
+ * esta interface, então a imagem pode estar num BufferedImage do heap
+ * (RasterHeap, o padrão) ou fora dele, em memória direta ou num arquivo
+ * mapeado (RasterForaDoHeap).
+ * 
+ * O índice é int nos dois casos, então um raster tem no máximo 2^31 - 1 pixels.
+ */
+public interface RasterARGB {
+    
+    int getLargura();
+    
+    int getAltura();
+    
+    int get(int indice);
+    
+    void set(int indice, int cor);
+    
+    /**
+     * Pinta os pixels de [inicio, fim) com a cor informada
+     */
+    void preencher(int inicio, int fim, int cor);
+    
+    /**
+     * Copia quantidade pixels a partir de inicio para destino[posicao...]
+     */
+    void ler(int inicio, int[] destino, int posicao, int quantidade);
+    
+    /**
+     * Copia quantidade pixels de origem[posicao...] para o raster a partir de inicio
+     */
+    void escrever(int inicio, int[] origem, int posicao, int quantidade);
+    
+    /**
+     * Cópia independente, guardada do mesmo jeito (no heap ou fora dele)
+     */
+    RasterARGB copiar();
+    
+    /**
+     * Substitui os pixels pelos de outro raster do mesmo tamanho, em partes,
+     * sem alocar outra imagem inteira
+     */
+    default void copiarDe(RasterARGB origem) {
+        int tamanho = getTamanho();
+        int[] parte = new int[Math.min(tamanho, 1 << 16)];
+        for (int inicio = 0; inicio < tamanho; inicio += parte.length) {
+            int quantidade = Math.min(parte.length, tamanho - inicio);
+            origem.ler(inicio, parte, 0, quantidade);
+            escrever(inicio, parte, 0, quantidade);
+        }
+    }
+    
+    /**
+     * A imagem como BufferedImage, sem cópia: alterações no raster aparecem nela
+     */
+    BufferedImage comoImagem();
+    
+    default int getTamanho() {
+        return getLargura() * getAltura();
+    }
+    
+    /**
+     * Raster de uma imagem: o próprio raster para imagens criadas por
+     * RasterForaDoHeap.comoImagem(), senão os pixels da imagem TYPE_INT_ARGB
+     */
+    static RasterARGB de(BufferedImage imagem) {
+        RasterForaDoHeap foraDoHeap = RasterForaDoHeap.daImagem(imagem);
+        return foraDoHeap != null ? foraDoHeap : new RasterHeap(imagem);
+    }
+}
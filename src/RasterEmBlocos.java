@@ -0,0 +1,488 @@
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Imagem ARGB dividida em blocos quadrados, com só alguns deles na memória
+ * 
+ * Um bloco é decodificado do arquivo de origem na primeira vez que é usado,
+ * pelo ImageReader com ImageReadParam.setSourceRegion, sem carregar a imagem
+ * inteira. Os blocos em uso ficam numa LRU limitada; ao sair dela, um bloco
+ * alterado é gravado num arquivo de rascunho (write-back) e, da próxima vez,
+ * volta de lá em vez de ser decodificado de novo.
+ * 
+ * Formatos sequenciais (PNG, JPEG) precisam decodificar as linhas anteriores
+ * à região pedida; por isso cada leitura decodifica um trecho de vários blocos
+ * da mesma faixa de linhas e guarda no rascunho os que não foram pedidos.
+ * 
+ * A imagem pode passar de 2^31 pixels: os índices são por bloco e as posições
+ * no rascunho são long. comoImagem() expõe o resultado como RenderedImage,
+ * lido bloco a bloco, para gravar a saída sem montar a imagem inteira.
+ */
+public class RasterEmBlocos implements Closeable {
+    private static final int[] MASCARAS = {0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000};
+    
+    private final ImageInputStream entrada;
+    private final ImageReader leitor;
+    private final int largura;
+    private final int altura;
+    private final int lado;
+    private final int blocosX;
+    private final int blocosY;
+    private final int capacidade;
+    private final int blocosPorLeitura;
+    private final LinkedHashMap<Integer, Bloco> emMemoria;
+    private final boolean[] noRascunho;
+    private final File arquivoRascunho;
+    private final FileChannel rascunho;
+    private final ByteBuffer transferencia;
+    private long blocosDecodificados;
+    private long blocosLidosDoRascunho;
+    private long blocosGravados;
+    
+    /**
+     * @param origem Arquivo de imagem em qualquer formato do ImageIO
+     * @param lado Lado dos blocos, em pixels
+     * @param capacidade Número máximo de blocos na memória
+     * @param arquivoRascunho Arquivo de rascunho (criado, e apagado em close())
+     */
+    public RasterEmBlocos(File origem, int lado, int capacidade, File arquivoRascunho) throws IOException {
+        if (lado < 1 || capacidade < 1) {
+            throw new IllegalArgumentException("Lado e capacidade devem ser positivos: " + lado + ", " + capacidade);
+        }
+        this.entrada = ImageIO.createImageInputStream(origem);
+        if (entrada == null) {
+            throw new IOException("Não foi possível abrir " + origem);
+        }
+        Iterator<ImageReader> leitores = ImageIO.getImageReaders(entrada);
+        if (!leitores.hasNext()) {
+            entrada.close();
+            throw new IOException("Formato de imagem não suportado: " + origem);
+        }
+        this.leitor = leitores.next();
+        leitor.setInput(entrada, true, true);
+        this.largura = leitor.getWidth(0);
+        this.altura = leitor.getHeight(0);
+        this.lado = lado;
+        this.blocosX = (largura + lado - 1) / lado;
+        this.blocosY = (altura + lado - 1) / lado;
+        if ((long) blocosX * blocosY > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Blocos demais para o lado " + lado);
+        }
+        this.capacidade = capacidade;
+        this.blocosPorLeitura = Math.max(1, Math.min(blocosX, capacidade / 4));
+        this.emMemoria = new LinkedHashMap<>(16, 0.75f, true);
+        this.noRascunho = new boolean[blocosX * blocosY];
+        this.arquivoRascunho = arquivoRascunho;
+        this.rascunho = FileChannel.open(arquivoRascunho.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.transferencia = ByteBuffer.allocateDirect(lado * lado * 4);
+    }
+    
+    /**
+     * Pixels de um bloco, linha a linha, com largura getLarguraBloco(bloco)
+     */
+    public static class Bloco {
+        final int numero;
+        final int x0;
+        final int y0;
+        final int largura;
+        final int altura;
+        final int[] pixels;
+        boolean alterado;
+        
+        Bloco(int numero, int x0, int y0, int largura, int altura, boolean comPixels) {
+            this.numero = numero;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.largura = largura;
+            this.altura = altura;
+            this.pixels = comPixels ? new int[largura * altura] : null;
+        }
+    }
+    
+    /**
+     * Bloco de número informado (by * blocosX + bx), trazido para a memória se preciso
+     * O bloco devolvido continua válido até a próxima chamada de obter()
+     */
+    public Bloco obter(int numero) throws IOException {
+        Bloco bloco = emMemoria.get(numero);
+        if (bloco != null) {
+            return bloco;
+        }
+        if (noRascunho[numero]) {
+            bloco = novoBloco(numero, true);
+            lerDoRascunho(bloco);
+        } else {
+            bloco = decodificar(numero);
+        }
+        guardar(bloco);
+        return bloco;
+    }
+    
+    /**
+     * Indica se o bloco está na memória (obter() não fará E/S)
+     */
+    public boolean estaEmMemoria(int numero) {
+        return emMemoria.containsKey(numero);
+    }
+    
+    /**
+     * Marca o bloco como alterado, para ser gravado no rascunho ao sair da memória
+     */
+    public void marcarAlterado(Bloco bloco) {
+        bloco.alterado = true;
+    }
+    
+    /**
+     * Bloco vazio na posição do número informado
+     * @param comPixels false para ter só a posição e o tamanho
+     */
+    private Bloco novoBloco(int numero, boolean comPixels) {
+        int x0 = (numero % blocosX) * lado;
+        int y0 = (numero / blocosX) * lado;
+        return new Bloco(numero, x0, y0, Math.min(lado, largura - x0), Math.min(lado, altura - y0), comPixels);
+    }
+    
+    /**
+     * Decodifica o bloco pedido junto com os vizinhos da mesma faixa que ainda não
+     * foram lidos; os vizinhos vão direto para o rascunho
+     */
+    private Bloco decodificar(int numero) throws IOException {
+        int by = numero / blocosX;
+        int primeiro = numero % blocosX;
+        int ultimo = primeiro;
+        while (ultimo + 1 < blocosX && ultimo + 1 - primeiro < blocosPorLeitura
+                && !jaLido(by * blocosX + ultimo + 1)) {
+            ultimo++;
+        }
+        int x0 = primeiro * lado;
+        int y0 = by * lado;
+        int larguraTrecho = Math.min((ultimo + 1) * lado, largura) - x0;
+        int alturaTrecho = Math.min(lado, altura - y0);
+        
+        ImageReadParam parametros = leitor.getDefaultReadParam();
+        parametros.setSourceRegion(new Rectangle(x0, y0, larguraTrecho, alturaTrecho));
+        BufferedImage trecho = leitor.read(0, parametros);
+        
+        Bloco pedido = null;
+        for (int bx = primeiro; bx <= ultimo; bx++) {
+            Bloco bloco = novoBloco(by * blocosX + bx, true);
+            trecho.getRGB(bloco.x0 - x0, 0, bloco.largura, bloco.altura, bloco.pixels, 0, bloco.largura);
+            blocosDecodificados++;
+            if (bx == primeiro) {
+                pedido = bloco;
+            } else {
+                gravarNoRascunho(bloco);
+            }
+        }
+        return pedido;
+    }
+    
+    private boolean jaLido(int numero) {
+        return noRascunho[numero] || emMemoria.containsKey(numero);
+    }
+    
+    /**
+     * Põe o bloco na LRU e devolve ao rascunho os menos usados que passarem da capacidade
+     */
+    private void guardar(Bloco bloco) throws IOException {
+        emMemoria.put(bloco.numero, bloco);
+        Iterator<Map.Entry<Integer, Bloco>> antigos = emMemoria.entrySet().iterator();
+        while (emMemoria.size() > capacidade) {
+            Bloco removido = antigos.next().getValue();
+            antigos.remove();
+            if (removido.alterado || !noRascunho[removido.numero]) {
+                gravarNoRascunho(removido);
+            }
+        }
+    }
+    
+    private long posicao(int numero) {
+        return (long) numero * lado * lado * 4;
+    }
+    
+    private void gravarNoRascunho(Bloco bloco) throws IOException {
+        transferencia.clear();
+        transferencia.asIntBuffer().put(bloco.pixels);
+        transferencia.limit(bloco.pixels.length * 4);
+        long posicao = posicao(bloco.numero);
+        while (transferencia.hasRemaining()) {
+            posicao += rascunho.write(transferencia, posicao);
+        }
+        noRascunho[bloco.numero] = true;
+        bloco.alterado = false;
+        blocosGravados++;
+    }
+    
+    private void lerDoRascunho(Bloco bloco) throws IOException {
+        transferencia.clear();
+        transferencia.limit(bloco.pixels.length * 4);
+        long posicao = posicao(bloco.numero);
+        while (transferencia.hasRemaining()) {
+            if (rascunho.read(transferencia, posicao + transferencia.position()) < 0) {
+                throw new IOException("Rascunho truncado no bloco " + bloco.numero);
+            }
+        }
+        transferencia.flip();
+        IntBuffer inteiros = transferencia.asIntBuffer();
+        inteiros.get(bloco.pixels);
+        blocosLidosDoRascunho++;
+    }
+    
+    /**
+     * Copia a parte do bloco que cai na região para destino (com a largura da região)
+     * 
+     * Não passa pela LRU: um bloco que está no rascunho tem só as linhas pedidas
+     * lidas de lá. Quem grava a imagem linha a linha percorre todos os blocos de
+     * uma faixa a cada linha, e trazer cada um inteiro para a memória tiraria de
+     * lá os demais sempre que a faixa tiver mais blocos que a capacidade.
+     */
+    private void copiarRegiao(int numero, Rectangle regiao, int[] destino) throws IOException {
+        Bloco bloco = emMemoria.get(numero);
+        if (bloco == null && !noRascunho[numero]) {
+            // Ainda não decodificado: a decodificação também leva os vizinhos ao rascunho
+            bloco = obter(numero);
+        }
+        Bloco limites = bloco != null ? bloco : novoBloco(numero, false);
+        int x0 = Math.max(regiao.x, limites.x0);
+        int x1 = Math.min(regiao.x + regiao.width, limites.x0 + limites.largura);
+        int y0 = Math.max(regiao.y, limites.y0);
+        int y1 = Math.min(regiao.y + regiao.height, limites.y0 + limites.altura);
+        int deslocamento = (y0 - regiao.y) * regiao.width + (x0 - regiao.x);
+        if (bloco != null) {
+            for (int y = y0; y < y1; y++, deslocamento += regiao.width) {
+                System.arraycopy(bloco.pixels, (y - bloco.y0) * bloco.largura + (x0 - bloco.x0),
+                        destino, deslocamento, x1 - x0);
+            }
+            return;
+        }
+        
+        // Linhas inteiras do bloco, contíguas no rascunho
+        transferencia.clear();
+        transferencia.limit((y1 - y0) * limites.largura * 4);
+        long posicao = posicao(numero) + (long) (y0 - limites.y0) * limites.largura * 4;
+        while (transferencia.hasRemaining()) {
+            if (rascunho.read(transferencia, posicao + transferencia.position()) < 0) {
+                throw new IOException("Rascunho truncado no bloco " + numero);
+            }
+        }
+        transferencia.flip();
+        IntBuffer inteiros = transferencia.asIntBuffer();
+        for (int y = y0; y < y1; y++, deslocamento += regiao.width) {
+            inteiros.position((y - y0) * limites.largura + (x0 - limites.x0));
+            inteiros.get(destino, deslocamento, x1 - x0);
+        }
+    }
+    
+    public int numeroBloco(int x, int y) {
+        return (y / lado) * blocosX + x / lado;
+    }
+    
+    public int getCor(int x, int y) throws IOException {
+        Bloco bloco = obter(numeroBloco(x, y));
+        return bloco.pixels[(y - bloco.y0) * bloco.largura + (x - bloco.x0)];
+    }
+    
+    public int getLargura() {
+        return largura;
+    }
+    
+    public int getAltura() {
+        return altura;
+    }
+    
+    public int getLado() {
+        return lado;
+    }
+    
+    public int getBlocosX() {
+        return blocosX;
+    }
+    
+    public int getBlocosY() {
+        return blocosY;
+    }
+    
+    public long getBlocosDecodificados() {
+        return blocosDecodificados;
+    }
+    
+    public long getBlocosLidosDoRascunho() {
+        return blocosLidosDoRascunho;
+    }
+    
+    public long getBlocosGravados() {
+        return blocosGravados;
+    }
+    
+    /**
+     * A imagem atual como RenderedImage de blocos: quem a lê (ImageIO.write, por
+     * exemplo) pede regiões, montadas a partir dos blocos, e só a região pedida e
+     * os blocos em uso ficam na memória
+     */
+    public RenderedImage comoImagem() {
+        return new Vista();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            leitor.dispose();
+            entrada.close();
+            rascunho.close();
+        } finally {
+            emMemoria.clear();
+            arquivoRascunho.delete();
+        }
+    }
+    
+    private class Vista implements RenderedImage {
+        @Override
+        public Raster getData(Rectangle regiao) {
+            Rectangle dentro = regiao.intersection(new Rectangle(0, 0, largura, altura));
+            WritableRaster raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, dentro.width, dentro.height,
+                    MASCARAS, new Point(dentro.x, dentro.y));
+            int[] destino = ((DataBufferInt) raster.getDataBuffer()).getData();
+            try {
+                for (int by = dentro.y / lado; by * lado < dentro.y + dentro.height; by++) {
+                    for (int bx = dentro.x / lado; bx * lado < dentro.x + dentro.width; bx++) {
+                        copiarRegiao(by * blocosX + bx, dentro, destino);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Erro ao ler os blocos da imagem", e);
+            }
+            return raster;
+        }
+        
+        @Override
+        public Raster getData() {
+            return getData(new Rectangle(0, 0, largura, altura));
+        }
+        
+        @Override
+        public Raster getTile(int tileX, int tileY) {
+            return getData(new Rectangle(tileX * lado, tileY * lado, lado, lado));
+        }
+        
+        @Override
+        public WritableRaster copyData(WritableRaster raster) {
+            if (raster == null) {
+                return (WritableRaster) getData();
+            }
+            raster.setRect(getData(raster.getBounds()));
+            return raster;
+        }
+        
+        @Override
+        public SampleModel getSampleModel() {
+            return new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT, lado, lado, MASCARAS);
+        }
+        
+        @Override
+        public ColorModel getColorModel() {
+            return ColorModel.getRGBdefault();
+        }
+        
+        @Override
+        public Vector<RenderedImage> getSources() {
+            return null;
+        }
+        
+        @Override
+        public Object getProperty(String nome) {
+            return Image.UndefinedProperty;
+        }
+        
+        @Override
+        public String[] getPropertyNames() {
+            return null;
+        }
+        
+        @Override
+        public int getWidth() {
+            return largura;
+        }
+        
+        @Override
+        public int getHeight() {
+            return altura;
+        }
+        
+        @Override
+        public int getMinX() {
+            return 0;
+        }
+        
+        @Override
+        public int getMinY() {
+            return 0;
+        }
+        
+        @Override
+        public int getNumXTiles() {
+            return blocosX;
+        }
+        
+        @Override
+        public int getNumYTiles() {
+            return blocosY;
+        }
+        
+        @Override
+        public int getMinTileX() {
+            return 0;
+        }
+        
+        @Override
+        public int getMinTileY() {
+            return 0;
+        }
+        
+        @Override
+        public int getTileWidth() {
+            return lado;
+        }
+        
+        @Override
+        public int getTileHeight() {
+            return lado;
+        }
+        
+        @Override
+        public int getTileGridXOffset() {
+            return 0;
+        }
+        
+        @Override
+        public int getTileGridYOffset() {
+            return 0;
+        }
+    }
+}
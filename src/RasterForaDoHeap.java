@@ -0,0 +1,292 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Raster com os pixels fora do heap, em memória direta ou num arquivo mapeado
+ * 
+ * Uma imagem de trabalho grande num int[] é um único objeto enorme no heap,
+ * que o coletor precisa reservar de uma vez e pode levar a coletas completas
+ * durante um preenchimento longo. Aqui os pixels ficam em buffers diretos
+ * (ByteBuffer.allocateDirect) ou mapeados de um arquivo (FileChannel.map),
+ * que o coletor não copia nem percorre; o heap guarda só os objetos dos buffers.
+ * 
+ * Um buffer direto ou mapeado tem no máximo 2^31 - 1 bytes (2^29 pixels), então
+ * os pixels são divididos em segmentos de 2^26 pixels; get e set escolhem o
+ * segmento pelos bits altos do índice. Os segmentos só contornam o limite de um
+ * buffer: o índice continua int, e o raster tem no máximo 2^31 - 1 pixels, o
+ * mesmo limite de um int[] (e de DataBufferInt). Imagens maiores que isso ficam
+ * com o FloodFillEmBlocos.
+ */
+public final class RasterForaDoHeap implements RasterARGB, Closeable {
+    private static final int BITS_SEGMENTO = 26;
+    private static final int PIXELS_SEGMENTO = 1 << BITS_SEGMENTO;
+    private static final int MASCARA_SEGMENTO = PIXELS_SEGMENTO - 1;
+    private static final int[] MASCARAS = {0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000};
+    
+    private final int largura;
+    private final int altura;
+    private final IntBuffer[] segmentos;
+    private final MappedByteBuffer[] mapas;
+    private final RandomAccessFile arquivo;
+    private BufferedImage imagem;
+    
+    /**
+     * Raster em memória direta, com todos os pixels zerados (transparentes)
+     */
+    public RasterForaDoHeap(int largura, int altura) {
+        this.largura = largura;
+        this.altura = altura;
+        this.segmentos = new IntBuffer[numeroSegmentos(largura, altura)];
+        this.mapas = null;
+        this.arquivo = null;
+        for (int s = 0; s < segmentos.length; s++) {
+            segmentos[s] = ByteBuffer.allocateDirect(4 * pixelsNoSegmento(s))
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+    
+    private RasterForaDoHeap(int largura, int altura, RandomAccessFile arquivo) throws IOException {
+        this.largura = largura;
+        this.altura = altura;
+        this.segmentos = new IntBuffer[numeroSegmentos(largura, altura)];
+        this.mapas = new MappedByteBuffer[segmentos.length];
+        this.arquivo = arquivo;
+        FileChannel canal = arquivo.getChannel();
+        for (int s = 0; s < segmentos.length; s++) {
+            mapas[s] = canal.map(FileChannel.MapMode.READ_WRITE, 4L * s * PIXELS_SEGMENTO, 4L * pixelsNoSegmento(s));
+            segmentos[s] = mapas[s].order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+    
+    /**
+     * Raster mapeado do arquivo informado, com 4 bytes por pixel
+     * Um arquivo que já tem o tamanho da imagem é reaberto com os pixels que tinha
+     * (de uma execução anterior); senão, é criado ou ajustado para o tamanho certo
+     * A ordem dos bytes é a nativa: o arquivo não é portável entre plataformas
+     * Se o mapeamento falhar, um arquivo criado aqui é excluído
+     */
+    public static RasterForaDoHeap mapear(File arquivo, int largura, int altura) throws IOException {
+        // Valida antes de tocar no arquivo, para não criá-lo nem truncá-lo à toa
+        numeroSegmentos(largura, altura);
+        long tamanho = 4L * largura * altura;
+        boolean criado = !arquivo.exists();
+        RandomAccessFile acesso = new RandomAccessFile(arquivo, "rw");
+        try {
+            if (acesso.length() != tamanho) {
+                acesso.setLength(tamanho);
+            }
+            return new RasterForaDoHeap(largura, altura, acesso);
+        } catch (IOException | RuntimeException e) {
+            acesso.close();
+            if (criado) {
+                arquivo.delete();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Copia os pixels da imagem para memória direta, uma linha de cada vez
+     */
+    public static RasterForaDoHeap copiar(BufferedImage origem) {
+        RasterForaDoHeap raster = new RasterForaDoHeap(origem.getWidth(), origem.getHeight());
+        raster.carregar(origem);
+        return raster;
+    }
+    
+    /**
+     * Substitui os pixels pelos da imagem (do mesmo tamanho), uma linha de cada vez
+     * Permite decodificar direto para um raster mapeado sem outra cópia no heap
+     */
+    public void carregar(BufferedImage origem) {
+        if (origem.getWidth() != largura || origem.getHeight() != altura) {
+            throw new IllegalArgumentException("A imagem deve ter " + largura + "x" + altura + " pixels");
+        }
+        int[] linha = new int[largura];
+        for (int y = 0; y < altura; y++) {
+            origem.getRGB(0, y, largura, 1, linha, 0, largura);
+            escrever(y * largura, linha, 0, largura);
+        }
+    }
+    
+    private static int numeroSegmentos(int largura, int altura) {
+        long pixels = (long) largura * altura;
+        if (largura <= 0 || altura <= 0 || pixels > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamanho inválido para um raster: " + largura + "x" + altura);
+        }
+        return (int) ((pixels + PIXELS_SEGMENTO - 1) >>> BITS_SEGMENTO);
+    }
+    
+    private int pixelsNoSegmento(int segmento) {
+        return (int) Math.min(PIXELS_SEGMENTO, (long) largura * altura - (long) segmento * PIXELS_SEGMENTO);
+    }
+    
+    @Override
+    public int getLargura() {
+        return largura;
+    }
+    
+    @Override
+    public int getAltura() {
+        return altura;
+    }
+    
+    @Override
+    public int get(int indice) {
+        return segmentos[indice >>> BITS_SEGMENTO].get(indice & MASCARA_SEGMENTO);
+    }
+    
+    @Override
+    public void set(int indice, int cor) {
+        segmentos[indice >>> BITS_SEGMENTO].put(indice & MASCARA_SEGMENTO, cor);
+    }
+    
+    @Override
+    public void preencher(int inicio, int fim, int cor) {
+        while (inicio < fim) {
+            IntBuffer segmento = segmentos[inicio >>> BITS_SEGMENTO];
+            int parte = Math.min(fim - inicio, PIXELS_SEGMENTO - (inicio & MASCARA_SEGMENTO));
+            for (int i = inicio & MASCARA_SEGMENTO, ate = i + parte; i < ate; i++) {
+                segmento.put(i, cor);
+            }
+            inicio += parte;
+        }
+    }
+    
+    @Override
+    public void ler(int inicio, int[] destino, int posicao, int quantidade) {
+        while (quantidade > 0) {
+            IntBuffer segmento = segmentos[inicio >>> BITS_SEGMENTO].duplicate();
+            int parte = Math.min(quantidade, PIXELS_SEGMENTO - (inicio & MASCARA_SEGMENTO));
+            segmento.position(inicio & MASCARA_SEGMENTO);
+            segmento.get(destino, posicao, parte);
+            inicio += parte;
+            posicao += parte;
+            quantidade -= parte;
+        }
+    }
+    
+    @Override
+    public void escrever(int inicio, int[] origem, int posicao, int quantidade) {
+        while (quantidade > 0) {
+            IntBuffer segmento = segmentos[inicio >>> BITS_SEGMENTO].duplicate();
+            int parte = Math.min(quantidade, PIXELS_SEGMENTO - (inicio & MASCARA_SEGMENTO));
+            segmento.position(inicio & MASCARA_SEGMENTO);
+            segmento.put(origem, posicao, parte);
+            inicio += parte;
+            posicao += parte;
+            quantidade -= parte;
+        }
+    }
+    
+    /**
+     * Cópia em memória direta (também quando este raster é mapeado)
+     */
+    @Override
+    public RasterARGB copiar() {
+        RasterForaDoHeap copia = new RasterForaDoHeap(largura, altura);
+        copia.copiarDe(this);
+        return copia;
+    }
+    
+    /**
+     * Entre dois rasters fora do heap, a cópia é feita segmento a segmento,
+     * sem passar por um int[]
+     */
+    @Override
+    public void copiarDe(RasterARGB origem) {
+        if (!(origem instanceof RasterForaDoHeap)) {
+            RasterARGB.super.copiarDe(origem);
+            return;
+        }
+        IntBuffer[] deles = ((RasterForaDoHeap) origem).segmentos;
+        for (int s = 0; s < segmentos.length; s++) {
+            IntBuffer segmento = deles[s].duplicate();
+            segmento.clear();
+            segmentos[s].duplicate().put(segmento);
+        }
+    }
+    
+    /**
+     * Imagem cujo DataBuffer lê e escreve direto nos segmentos
+     * Serve para quem recebe um BufferedImage (destinos de frames, ImageIO);
+     * RasterARGB.de(imagem) devolve este raster
+     */
+    @Override
+    public BufferedImage comoImagem() {
+        if (imagem == null) {
+            SinglePixelPackedSampleModel modelo = new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT,
+                    largura, altura, MASCARAS);
+            WritableRaster raster = Raster.createWritableRaster(modelo, new Dados(this), null);
+            imagem = new BufferedImage(ColorModel.getRGBdefault(), raster, false, null);
+        }
+        return imagem;
+    }
+    
+    /**
+     * O raster por trás de uma imagem criada por comoImagem(), ou null
+     */
+    static RasterForaDoHeap daImagem(BufferedImage imagem) {
+        DataBuffer dados = imagem.getRaster().getDataBuffer();
+        return dados instanceof Dados ? ((Dados) dados).raster : null;
+    }
+    
+    /**
+     * Grava no arquivo as alterações ainda só na memória (raster mapeado)
+     */
+    public void sincronizar() {
+        if (mapas != null) {
+            for (MappedByteBuffer mapa : mapas) {
+                mapa.force();
+            }
+        }
+    }
+    
+    /**
+     * Fecha o arquivo do raster mapeado, depois de sincronizar
+     * A memória direta e os mapeamentos são liberados pelo coletor quando o
+     * raster deixa de ser usado
+     */
+    @Override
+    public void close() throws IOException {
+        sincronizar();
+        if (arquivo != null) {
+            arquivo.close();
+        }
+    }
+    
+    /**
+     * DataBuffer de inteiros que lê e escreve direto no raster
+     */
+    private static class Dados extends DataBuffer {
+        private final RasterForaDoHeap raster;
+        
+        Dados(RasterForaDoHeap raster) {
+            super(DataBuffer.TYPE_INT, raster.getTamanho());
+            this.raster = raster;
+        }
+        
+        @Override
+        public int getElem(int banco, int i) {
+            return raster.get(i);
+        }
+        
+        @Override
+        public void setElem(int banco, int i, int valor) {
+            raster.set(i, valor);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Raster sobre o array de pixels de um BufferedImage TYPE_INT_ARGB, no heap
+ */
+public final class RasterHeap implements RasterARGB {
+    private final BufferedImage imagem;
+    private final int[] pixels;
+    
+    /**
+     * Usa os pixels da imagem, sem cópia
+     */
+    public RasterHeap(BufferedImage imagem) {
+        this.imagem = imagem;
+        this.pixels = ImagemARGB.pixels(imagem);
+    }
+    
+    /**
+     * O array de pixels, para quem trabalha direto nele (índice de regiões, tolerância)
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+    
+    @Override
+    public int getLargura() {
+        return imagem.getWidth();
+    }
+    
+    @Override
+    public int getAltura() {
+        return imagem.getHeight();
+    }
+    
+    @Override
+    public int get(int indice) {
+        return pixels[indice];
+    }
+    
+    @Override
+    public void set(int indice, int cor) {
+        pixels[indice] = cor;
+    }
+    
+    @Override
+    public void preencher(int inicio, int fim, int cor) {
+        Arrays.fill(pixels, inicio, fim, cor);
+    }
+    
+    @Override
+    public void ler(int inicio, int[] destino, int posicao, int quantidade) {
+        System.arraycopy(pixels, inicio, destino, posicao, quantidade);
+    }
+    
+    @Override
+    public void escrever(int inicio, int[] origem, int posicao, int quantidade) {
+        System.arraycopy(origem, posicao, pixels, inicio, quantidade);
+    }
+    
+    @Override
+    public RasterARGB copiar() {
+        return new RasterHeap(ImagemARGB.copiar(imagem));
+    }
+    
+    @Override
+    public void copiarDe(RasterARGB origem) {
+        if (origem instanceof RasterHeap) {
+            System.arraycopy(((RasterHeap) origem).pixels, 0, pixels, 0, pixels.length);
+        } else {
+            origem.ler(0, pixels, 0, pixels.length);
+        }
+    }
+    
+    @Override
+    public BufferedImage comoImagem() {
+        return imagem;
+    }
+}
@@ -0,0 +1,230 @@
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+import estruturas.TipoAlgoritmo;
+
+/**
+ * Uma tarefa do modo em lote: imagem, semente, cor, algoritmo, intervalo e saída
+ * 
+ * Cada linha do manifesto descreve uma tarefa, em um destes formatos:
+ *   imagem;x;y;cor;algoritmo;intervalo;saida
+ *   {"imagem": "a.png", "x": 10, "y": 20, "cor": "#FF0000", "algoritmo": "SCANLINE", "intervalo": 100, "saida": "a.gif"}
+ * 
+ * A cor aceita vermelho/verde/azul ou hexadecimal (#RRGGBB, #AARRGGBB ou 0x...).
+ * O algoritmo aceita o nome do TipoAlgoritmo ou o número do menu (1 a 4).
+ * A saída define o resultado: .gif gera a animação, .png salva só a imagem
+ * final e qualquer outro nome é tratado como pasta de frames PNG.
+ */
+public class TarefaPreenchimento {
+    private final String imagem;
+    private final int x;
+    private final int y;
+    private final Color cor;
+    private final TipoAlgoritmo algoritmo;
+    private final int intervalo;
+    private final String saida;
+    
+    public TarefaPreenchimento(String imagem, int x, int y, Color cor, TipoAlgoritmo algoritmo, int intervalo,
+                               String saida) {
+        if (intervalo < 1) {
+            throw new IllegalArgumentException("Intervalo por frame deve ser pelo menos 1: " + intervalo);
+        }
+        this.imagem = imagem;
+        this.x = x;
+        this.y = y;
+        this.cor = cor;
+        this.algoritmo = algoritmo;
+        this.intervalo = intervalo;
+        this.saida = saida;
+    }
+    
+    /**
+     * Lê uma linha do manifesto (separada por ';' ou objeto JSON)
+     */
+    public static TarefaPreenchimento ler(String linha) {
+        String texto = linha.trim();
+        Map<String, String> campos = texto.startsWith("{") ? lerObjetoJSON(texto) : lerCamposSeparados(texto);
+        return new TarefaPreenchimento(
+                obrigatorio(campos, "imagem"),
+                Integer.parseInt(obrigatorio(campos, "x")),
+                Integer.parseInt(obrigatorio(campos, "y")),
+                lerCor(obrigatorio(campos, "cor")),
+                lerAlgoritmo(obrigatorio(campos, "algoritmo")),
+                Integer.parseInt(obrigatorio(campos, "intervalo")),
+                obrigatorio(campos, "saida"));
+    }
+    
+    private static Map<String, String> lerCamposSeparados(String texto) {
+        String[] partes = texto.split(";", -1);
+        String[] nomes = {"imagem", "x", "y", "cor", "algoritmo", "intervalo", "saida"};
+        if (partes.length != nomes.length) {
+            throw new IllegalArgumentException("Esperados " + nomes.length + " campos separados por ';', encontrados "
+                    + partes.length);
+        }
+        Map<String, String> campos = new HashMap<>();
+        for (int i = 0; i < nomes.length; i++) {
+            campos.put(nomes[i], partes[i].trim());
+        }
+        return campos;
+    }
+    
+    /**
+     * Lê um objeto JSON plano, com valores texto ou número
+     */
+    private static Map<String, String> lerObjetoJSON(String texto) {
+        Map<String, String> campos = new HashMap<>();
+        int[] posicao = {1};
+        pularEspacos(texto, posicao);
+        if (caractere(texto, posicao[0]) == '}') {
+            return campos;
+        }
+        while (true) {
+            pularEspacos(texto, posicao);
+            String chave = lerTextoJSON(texto, posicao);
+            pularEspacos(texto, posicao);
+            esperar(texto, posicao, ':');
+            pularEspacos(texto, posicao);
+            String valor;
+            if (caractere(texto, posicao[0]) == '"') {
+                valor = lerTextoJSON(texto, posicao);
+            } else {
+                int inicio = posicao[0];
+                while (posicao[0] < texto.length() && ",} \t".indexOf(texto.charAt(posicao[0])) < 0) {
+                    posicao[0]++;
+                }
+                valor = texto.substring(inicio, posicao[0]);
+            }
+            campos.put(chave, valor);
+            pularEspacos(texto, posicao);
+            if (caractere(texto, posicao[0]) == ',') {
+                posicao[0]++;
+            } else {
+                esperar(texto, posicao, '}');
+                return campos;
+            }
+        }
+    }
+    
+    private static String lerTextoJSON(String texto, int[] posicao) {
+        esperar(texto, posicao, '"');
+        StringBuilder valor = new StringBuilder();
+        while (caractere(texto, posicao[0]) != '"') {
+            char c = texto.charAt(posicao[0]++);
+            if (c == '\\') {
+                char escapado = caractere(texto, posicao[0]++);
+                switch (escapado) {
+                    case 'n': valor.append('\n'); break;
+                    case 't': valor.append('\t'); break;
+                    case 'u':
+                        valor.append(lerEscapeUnicode(texto, posicao[0]));
+                        posicao[0] += 4;
+                        break;
+                    default: valor.append(escapado);
+                }
+            } else {
+                valor.append(c);
+            }
+        }
+        posicao[0]++;
+        return valor.toString();
+    }
+    
+    /**
+     * Caractere de um escape unicode, pelos quatro dígitos hexadecimais a partir da posição
+     */
+    private static char lerEscapeUnicode(String texto, int posicao) {
+        if (posicao + 4 > texto.length()) {
+            throw new IllegalArgumentException("JSON inválido: escape \\u incompleto na posição " + posicao);
+        }
+        try {
+            return (char) Integer.parseInt(texto.substring(posicao, posicao + 4), 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("JSON inválido: escape \\u inválido na posição " + posicao);
+        }
+    }
+    
+    private static void pularEspacos(String texto, int[] posicao) {
+        while (posicao[0] < texto.length() && Character.isWhitespace(texto.charAt(posicao[0]))) {
+            posicao[0]++;
+        }
+    }
+    
+    private static void esperar(String texto, int[] posicao, char esperado) {
+        if (caractere(texto, posicao[0]) != esperado) {
+            throw new IllegalArgumentException("JSON inválido: esperado '" + esperado + "' na posição " + posicao[0]);
+        }
+        posicao[0]++;
+    }
+    
+    private static char caractere(String texto, int posicao) {
+        if (posicao >= texto.length()) {
+            throw new IllegalArgumentException("JSON inválido: fim inesperado da linha");
+        }
+        return texto.charAt(posicao);
+    }
+    
+    private static String obrigatorio(Map<String, String> campos, String nome) {
+        String valor = campos.get(nome);
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("Campo obrigatório ausente: " + nome);
+        }
+        return valor;
+    }
+    
+    static Color lerCor(String texto) {
+        switch (texto.toLowerCase()) {
+            case "vermelho": return Color.RED;
+            case "verde": return Color.GREEN;
+            case "azul": return Color.BLUE;
+            default:
+                String hex = texto.startsWith("#") ? texto.substring(1)
+                        : texto.toLowerCase().startsWith("0x") ? texto.substring(2) : texto;
+                if (hex.isEmpty() || hex.length() > 8) {
+                    throw new IllegalArgumentException("Cor inválida: " + texto);
+                }
+                long valor = Long.parseLong(hex, 16);
+                // Sem canal alfa explícito, a cor é opaca
+                return new Color((int) (hex.length() <= 6 ? valor | 0xFF000000L : valor), true);
+        }
+    }
+    
+    static TipoAlgoritmo lerAlgoritmo(String texto) {
+        if (!texto.isEmpty() && Character.isDigit(texto.charAt(0))) {
+            int opcao = Integer.parseInt(texto);
+            TipoAlgoritmo[] tipos = TipoAlgoritmo.values();
+            if (opcao < 1 || opcao > tipos.length) {
+                throw new IllegalArgumentException("Algoritmo inválido: " + texto);
+            }
+            return tipos[opcao - 1];
+        }
+        return TipoAlgoritmo.valueOf(texto.toUpperCase());
+    }
+    
+    public String getImagem() {
+        return imagem;
+    }
+    
+    public int getX() {
+        return x;
+    }
+    
+    public int getY() {
+        return y;
+    }
+    
+    public Color getCor() {
+        return cor;
+    }
+    
+    public TipoAlgoritmo getAlgoritmo() {
+        return algoritmo;
+    }
+    
+    public int getIntervalo() {
+        return intervalo;
+    }
+    
+    public String getSaida() {
+        return saida;
+    }
+}
@@ -0,0 +1,111 @@
+package comparacao;
+
+import estruturas.TipoTolerancia;
+
+/**
+ * Verifica se pixels ARGB estão dentro da tolerância de uma cor de referência,
+ * trabalhando sobre sequências inteiras de uma linha
+ * 
+ * As buscas devolvem onde a sequência de pixels parecidos (ou diferentes)
+ * termina, para que o preenchimento estenda uma linha de uma vez em vez de
+ * testar pixel a pixel. Esta classe faz as buscas pixel a pixel, só com
+ * aritmética inteira; quando o módulo jdk.incubator.vector está disponível,
+ * criar() devolve a versão vetorial, que compara vários pixels por instrução.
+ */
+public class ComparadorLinha {
+    private static final String CLASSE_VETORIAL = "comparacao.vetorial.ComparadorLinhaVetorial";
+    
+    protected final int alfa;
+    protected final int vermelho;
+    protected final int verde;
+    protected final int azul;
+    protected final int tolerancia;
+    protected final TipoTolerancia tipo;
+    
+    /**
+     * @param cor Cor de referência (ARGB)
+     * @param tolerancia Diferença máxima por canal, ou distância máxima (euclidiana)
+     */
+    public ComparadorLinha(int cor, int tolerancia, TipoTolerancia tipo) {
+        if (tolerancia < 0) {
+            throw new IllegalArgumentException("Tolerância não pode ser negativa: " + tolerancia);
+        }
+        this.alfa = cor >>> 24;
+        this.vermelho = (cor >> 16) & 0xFF;
+        this.verde = (cor >> 8) & 0xFF;
+        this.azul = cor & 0xFF;
+        // Por canal, 255 já aceita qualquer cor; na euclidiana, 510 = raiz de 4 × 255²
+        this.tolerancia = Math.min(tolerancia, tipo == TipoTolerancia.POR_CANAL ? 255 : 510);
+        this.tipo = tipo;
+    }
+    
+    /**
+     * Cria o comparador mais rápido disponível: vetorial se a JVM foi iniciada com
+     * --add-modules jdk.incubator.vector e a classe vetorial foi compilada; senão, escalar
+     */
+    public static ComparadorLinha criar(int cor, int tolerancia, TipoTolerancia tipo) {
+        try {
+            return (ComparadorLinha) Class.forName(CLASSE_VETORIAL)
+                    .getConstructor(int.class, int.class, TipoTolerancia.class)
+                    .newInstance(cor, tolerancia, tipo);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ComparadorLinha(cor, tolerancia, tipo);
+        }
+    }
+    
+    /**
+     * Verifica se a cor está dentro da tolerância
+     */
+    public boolean corresponde(int cor) {
+        int da = (cor >>> 24) - alfa;
+        int dr = ((cor >> 16) & 0xFF) - vermelho;
+        int dg = ((cor >> 8) & 0xFF) - verde;
+        int db = (cor & 0xFF) - azul;
+        if (tipo == TipoTolerancia.POR_CANAL) {
+            return Math.abs(da) <= tolerancia && Math.abs(dr) <= tolerancia
+                    && Math.abs(dg) <= tolerancia && Math.abs(db) <= tolerancia;
+        }
+        return da * da + dr * dr + dg * dg + db * db <= tolerancia * tolerancia;
+    }
+    
+    /**
+     * Primeiro índice em [inicio, fim) cujo pixel não corresponde, ou fim
+     */
+    public int proximaDiferente(int[] pixels, int inicio, int fim) {
+        int i = inicio;
+        while (i < fim && corresponde(pixels[i])) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * Primeiro índice em [inicio, fim) cujo pixel corresponde, ou fim
+     */
+    public int proximaIgual(int[] pixels, int inicio, int fim) {
+        int i = inicio;
+        while (i < fim && !corresponde(pixels[i])) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * Maior índice em [limite, inicio] cujo pixel não corresponde, percorrendo
+     * para trás, ou limite - 1 se todos correspondem
+     */
+    public int anteriorDiferente(int[] pixels, int inicio, int limite) {
+        int i = inicio;
+        while (i >= limite && corresponde(pixels[i])) {
+            i--;
+        }
+        return Math.max(i, limite - 1);
+    }
+    
+    /**
+     * Indica se as buscas usam instruções vetoriais
+     */
+    public boolean isVetorial() {
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+package comparacao.vetorial;
+
+import comparacao.ComparadorLinha;
+import estruturas.TipoTolerancia;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Versão vetorial do ComparadorLinha (API jdk.incubator.vector)
+ * 
+ * Carrega vários pixels de uma vez, separa os canais com deslocamentos e
+ * máscaras e compara todos numa só operação; a máscara resultante indica
+ * onde a sequência termina. O resto da linha que não enche um vetor é
+ * tratado pela versão escalar.
+ * 
+ * Precisa de --add-modules jdk.incubator.vector para compilar e executar;
+ * sem o módulo, ComparadorLinha.criar() usa a versão escalar.
+ */
+public class ComparadorLinhaVetorial extends ComparadorLinha {
+    private static final VectorSpecies<Integer> ESPECIE = IntVector.SPECIES_PREFERRED;
+    private static final int PASSO = ESPECIE.length();
+    
+    public ComparadorLinhaVetorial(int cor, int tolerancia, TipoTolerancia tipo) {
+        super(cor, tolerancia, tipo);
+    }
+    
+    /**
+     * Compara todos os pixels do vetor com a cor de referência
+     */
+    private VectorMask<Integer> corresponde(IntVector cores) {
+        IntVector da = cores.lanewise(VectorOperators.LSHR, 24).sub(alfa);
+        IntVector dr = cores.lanewise(VectorOperators.LSHR, 16).and(0xFF).sub(vermelho);
+        IntVector dg = cores.lanewise(VectorOperators.LSHR, 8).and(0xFF).sub(verde);
+        IntVector db = cores.and(0xFF).sub(azul);
+        if (tipo == TipoTolerancia.POR_CANAL) {
+            IntVector maior = da.abs().max(dr.abs()).max(dg.abs()).max(db.abs());
+            return maior.compare(VectorOperators.LE, tolerancia);
+        }
+        IntVector distancia = da.mul(da).add(dr.mul(dr)).add(dg.mul(dg)).add(db.mul(db));
+        return distancia.compare(VectorOperators.LE, tolerancia * tolerancia);
+    }
+    
+    @Override
+    public int proximaDiferente(int[] pixels, int inicio, int fim) {
+        int i = inicio;
+        for (; i + PASSO <= fim; i += PASSO) {
+            VectorMask<Integer> iguais = corresponde(IntVector.fromArray(ESPECIE, pixels, i));
+            if (!iguais.allTrue()) {
+                return i + iguais.not().firstTrue();
+            }
+        }
+        return super.proximaDiferente(pixels, i, fim);
+    }
+    
+    @Override
+    public int proximaIgual(int[] pixels, int inicio, int fim) {
+        int i = inicio;
+        for (; i + PASSO <= fim; i += PASSO) {
+            VectorMask<Integer> iguais = corresponde(IntVector.fromArray(ESPECIE, pixels, i));
+            if (iguais.anyTrue()) {
+                return i + iguais.firstTrue();
+            }
+        }
+        return super.proximaIgual(pixels, i, fim);
+    }
+    
+    @Override
+    public int anteriorDiferente(int[] pixels, int inicio, int limite) {
+        int i = inicio;
+        for (; i - PASSO + 1 >= limite; i -= PASSO) {
+            int base = i - PASSO + 1;
+            VectorMask<Integer> iguais = corresponde(IntVector.fromArray(ESPECIE, pixels, base));
+            if (!iguais.allTrue()) {
+                return base + iguais.not().lastTrue();
+            }
+        }
+        return super.anteriorDiferente(pixels, i, limite);
+    }
+    
+    @Override
+    public boolean isVetorial() {
+        return true;
+    }
+}
@@ -0,0 +1,144 @@
+package estruturas;
+
+/**
+ * Conjunto compacto de índices inteiros, usando um bit por índice
+ * Útil para marcar pixels já visitados sem alocar um objeto por pixel
+ */
+public class ConjuntoBits {
+    private final long[] palavras;
+    private final int capacidade;
+    
+    public ConjuntoBits(int capacidade) {
+        this.capacidade = capacidade;
+        this.palavras = new long[(capacidade + 63) >>> 6];
+    }
+    
+    /**
+     * Marca o índice e retorna true se ele ainda não estava marcado
+     */
+    public boolean marcar(int indice) {
+        int palavra = indice >>> 6;
+        long bit = 1L << indice;
+        if ((palavras[palavra] & bit) != 0) {
+            return false;
+        }
+        palavras[palavra] |= bit;
+        return true;
+    }
+    
+    public boolean estaMarcado(int indice) {
+        return (palavras[indice >>> 6] & (1L << indice)) != 0;
+    }
+    
+    public void desmarcar(int indice) {
+        palavras[indice >>> 6] &= ~(1L << indice);
+    }
+    
+    /**
+     * Marca todos os índices do intervalo [inicio, fim)
+     */
+    public void marcarIntervalo(int inicio, int fim) {
+        if (inicio >= fim) {
+            return;
+        }
+        int primeira = inicio >>> 6;
+        int ultima = (fim - 1) >>> 6;
+        long mascaraInicio = -1L << inicio;
+        long mascaraFim = -1L >>> -fim;
+        if (primeira == ultima) {
+            palavras[primeira] |= mascaraInicio & mascaraFim;
+            return;
+        }
+        palavras[primeira] |= mascaraInicio;
+        for (int i = primeira + 1; i < ultima; i++) {
+            palavras[i] = -1L;
+        }
+        palavras[ultima] |= mascaraFim;
+    }
+    
+    /**
+     * Desmarca todos os índices do intervalo [inicio, fim)
+     */
+    public void desmarcarIntervalo(int inicio, int fim) {
+        if (inicio >= fim) {
+            return;
+        }
+        int primeira = inicio >>> 6;
+        int ultima = (fim - 1) >>> 6;
+        long mascaraInicio = -1L << inicio;
+        long mascaraFim = -1L >>> -fim;
+        if (primeira == ultima) {
+            palavras[primeira] &= ~(mascaraInicio & mascaraFim);
+            return;
+        }
+        palavras[primeira] &= ~mascaraInicio;
+        for (int i = primeira + 1; i < ultima; i++) {
+            palavras[i] = 0L;
+        }
+        palavras[ultima] &= ~mascaraFim;
+    }
+    
+    /**
+     * Primeiro índice marcado em [inicio, fim), ou fim se não houver
+     */
+    public int proximoMarcado(int inicio, int fim) {
+        return proximo(inicio, fim, 0L);
+    }
+    
+    /**
+     * Primeiro índice não marcado em [inicio, fim), ou fim se não houver
+     */
+    public int proximoDesmarcado(int inicio, int fim) {
+        return proximo(inicio, fim, -1L);
+    }
+    
+    /**
+     * Maior índice marcado em [limite, inicio], percorrendo para trás,
+     * ou limite - 1 se não houver
+     */
+    public int anteriorMarcado(int inicio, int limite) {
+        if (inicio < limite) {
+            return limite - 1;
+        }
+        int palavra = inicio >>> 6;
+        long bits = palavras[palavra] & (-1L >>> (63 - (inicio & 63)));
+        while (true) {
+            if (bits != 0) {
+                int indice = (palavra << 6) + 63 - Long.numberOfLeadingZeros(bits);
+                return Math.max(indice, limite - 1);
+            }
+            if (--palavra < 0 || (palavra << 6) + 63 < limite) {
+                return limite - 1;
+            }
+            bits = palavras[palavra];
+        }
+    }
+    
+    /**
+     * Busca para frente o primeiro bit diferente de inverter (0 = marcados, -1 = desmarcados)
+     */
+    private int proximo(int inicio, int fim, long inverter) {
+        if (inicio >= fim) {
+            return fim;
+        }
+        int palavra = inicio >>> 6;
+        long bits = (palavras[palavra] ^ inverter) & (-1L << inicio);
+        while (true) {
+            if (bits != 0) {
+                return Math.min((palavra << 6) + Long.numberOfTrailingZeros(bits), fim);
+            }
+            if ((++palavra << 6) >= fim) {
+                return fim;
+            }
+            bits = palavras[palavra] ^ inverter;
+        }
+    }
+    
+    public int getCapacidade() {
+        return capacidade;
+    }
+    
+    public void limpar() {
+        java.util.Arrays.fill(palavras, 0L);
+    }
+}
@@ -0,0 +1,110 @@
+package estruturas;
+
+/**
+ * Implementação de uma Fila (FIFO - First In, First Out) de inteiros primitivos
+ * Usa um buffer circular que cresce quando necessário, sem alocar um objeto por elemento
+ */
+public class FilaInteiros {
+    private static final int CAPACIDADE_INICIAL = 16;
+    
+    private int[] elementos;
+    private int inicio;
+    private int tamanho;
+    private int maiorTamanho;
+    private long totalInseridos;
+    
+    public FilaInteiros() {
+        this(CAPACIDADE_INICIAL);
+    }
+    
+    public FilaInteiros(int capacidadeInicial) {
+        this.elementos = new int[Math.max(capacidadeInicial, 1)];
+        this.inicio = 0;
+        this.tamanho = 0;
+    }
+    
+    /**
+     * Adiciona um elemento no final da fila (enqueue)
+     */
+    public void enfileirar(int valor) {
+        if (tamanho == elementos.length) {
+            crescer();
+        }
+        int posicao = inicio + tamanho;
+        if (posicao >= elementos.length) {
+            posicao -= elementos.length;
+        }
+        elementos[posicao] = valor;
+        tamanho++;
+        totalInseridos++;
+        if (tamanho > maiorTamanho) {
+            maiorTamanho = tamanho;
+        }
+    }
+    
+    /**
+     * Remove e retorna o primeiro elemento da fila (dequeue)
+     */
+    public int desenfileirar() {
+        if (tamanho == 0) {
+            throw new RuntimeException("Fila vazia");
+        }
+        
+        int valor = elementos[inicio];
+        inicio++;
+        if (inicio == elementos.length) {
+            inicio = 0;
+        }
+        tamanho--;
+        return valor;
+    }
+    
+    /**
+     * Retorna o primeiro elemento sem removê-lo
+     */
+    public int primeiro() {
+        if (tamanho == 0) {
+            throw new RuntimeException("Fila vazia");
+        }
+        return elementos[inicio];
+    }
+    
+    public boolean estaVazia() {
+        return tamanho == 0;
+    }
+    
+    public int getTamanho() {
+        return tamanho;
+    }
+    
+    /**
+     * Maior número de elementos que a estrutura já teve ao mesmo tempo
+     */
+    public int getMaiorTamanho() {
+        return maiorTamanho;
+    }
+    
+    /**
+     * Total de elementos inseridos desde a criação
+     */
+    public long getTotalInseridos() {
+        return totalInseridos;
+    }
+    
+    public void limpar() {
+        inicio = 0;
+        tamanho = 0;
+    }
+    
+    /**
+     * Dobra a capacidade do buffer, desenrolando o buffer circular a partir do início
+     */
+    private void crescer() {
+        int[] novos = new int[elementos.length * 2];
+        int trechoFinal = elementos.length - inicio;
+        System.arraycopy(elementos, inicio, novos, 0, trechoFinal);
+        System.arraycopy(elementos, 0, novos, trechoFinal, inicio);
+        elementos = novos;
+        inicio = 0;
+    }
+}
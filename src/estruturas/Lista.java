@@ -1,72 +1,58 @@
 package estruturas;
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * Implementação de uma Lista
+ * Os elementos ficam num array que dobra de tamanho quando enche,
+ * então obter(i) é O(1) e adicionar é O(1) amortizado
  * @param <T> Tipo dos elementos da lista
  */
-public class Lista<T> {
-    private Elemento<T> primeiro;
-    private Elemento<T> ultimo;
+public class Lista<T> implements Iterable<T> {
+    private static final int CAPACIDADE_INICIAL = 16;
+    
+    private Object[] elementos;
     private int tamanho;
+    private int modificacoes;
     
     public Lista() {
-        this.primeiro = null;
-        this.ultimo = null;
+        this(CAPACIDADE_INICIAL);
+    }
+    
+    public Lista(int capacidadeInicial) {
+        this.elementos = new Object[Math.max(capacidadeInicial, 1)];
         this.tamanho = 0;
     }
     
     public void adicionar(T valor) {
-        Elemento<T> novoElemento = new Elemento<>(valor);
-        
-        if (primeiro == null) {
-            primeiro = novoElemento;
-            ultimo = novoElemento;
-        } else {
-            ultimo.setProximo(novoElemento);
-            ultimo = novoElemento;
+        if (tamanho == elementos.length) {
+            Object[] novo = new Object[elementos.length * 2];
+            System.arraycopy(elementos, 0, novo, 0, tamanho);
+            elementos = novo;
         }
-        tamanho++;
+        elementos[tamanho++] = valor;
+        modificacoes++;
     }
     
+    @SuppressWarnings("unchecked")
     public T obter(int indice) {
         if (indice < 0 || indice >= tamanho) {
             throw new IndexOutOfBoundsException("Índice inválido: " + indice);
         }
         
-        Elemento<T> atual = primeiro;
-        for (int i = 0; i < indice; i++) {
-            atual = atual.getProximo();
-        }
-        
-        return atual.getValor();
+        return (T) elementos[indice];
     }
     
     public boolean remover(T valor) {
-        if (primeiro == null) {
-            return false;
-        }
-        
-        if (primeiro.getValor().equals(valor)) {
-            primeiro = primeiro.getProximo();
-            if (primeiro == null) {
-                ultimo = null;
-            }
-            tamanho--;
-            return true;
-        }
-        
-        Elemento<T> atual = primeiro;
-        while (atual.getProximo() != null) {
-            if (atual.getProximo().getValor().equals(valor)) {
-                Elemento<T> elementoRemover = atual.getProximo();
-                atual.setProximo(elementoRemover.getProximo());
-                if (elementoRemover == ultimo) {
-                    ultimo = atual;
-                }
-                tamanho--;
+        for (int i = 0; i < tamanho; i++) {
+            if (elementos[i].equals(valor)) {
+                System.arraycopy(elementos, i + 1, elementos, i, tamanho - i - 1);
+                elementos[--tamanho] = null;
+                modificacoes++;
                 return true;
             }
-            atual = atual.getProximo();
         }
         
         return false;
@@ -81,8 +67,38 @@ public class Lista<T> {
     }
     
     public void limpar() {
-        primeiro = null;
-        ultimo = null;
+        for (int i = 0; i < tamanho; i++) {
+            elementos[i] = null;
+        }
         tamanho = 0;
+        modificacoes++;
+    }
+    
+    /**
+     * Percorre os elementos na ordem em que foram adicionados
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int posicao = 0;
+            private final int modificacoesEsperadas = modificacoes;
+            
+            @Override
+            public boolean hasNext() {
+                return posicao < tamanho;
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (modificacoes != modificacoesEsperadas) {
+                    throw new ConcurrentModificationException();
+                }
+                if (posicao >= tamanho) {
+                    throw new NoSuchElementException();
+                }
+                return (T) elementos[posicao++];
+            }
+        };
     }
 }
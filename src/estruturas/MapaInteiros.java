@@ -0,0 +1,100 @@
+package estruturas;
+
+/**
+ * Mapa de chaves inteiras para valores inteiros não negativos
+ * Usa endereçamento aberto em arrays primitivos, sem alocar objetos por entrada
+ */
+public class MapaInteiros {
+    private static final int VAZIO = Integer.MIN_VALUE;
+    
+    private int[] chaves;
+    private int[] valores;
+    private int tamanho;
+    
+    public MapaInteiros() {
+        this(16);
+    }
+    
+    public MapaInteiros(int capacidadeInicial) {
+        int capacidade = 16;
+        while (capacidade < capacidadeInicial * 2) {
+            capacidade <<= 1;
+        }
+        this.chaves = new int[capacidade];
+        this.valores = new int[capacidade];
+        java.util.Arrays.fill(chaves, VAZIO);
+        this.tamanho = 0;
+    }
+    
+    /**
+     * Retorna o valor associado à chave, ou -1 se ela não estiver no mapa
+     */
+    public int obter(int chave) {
+        int mascara = chaves.length - 1;
+        int posicao = espalhar(chave) & mascara;
+        while (true) {
+            int atual = chaves[posicao];
+            if (atual == chave) {
+                return valores[posicao];
+            }
+            if (atual == VAZIO) {
+                return -1;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+    }
+    
+    /**
+     * Associa o valor à chave, substituindo o valor anterior se houver
+     */
+    public void colocar(int chave, int valor) {
+        if (chave == VAZIO) {
+            throw new IllegalArgumentException("Chave reservada: " + chave);
+        }
+        if ((tamanho + 1) * 2 > chaves.length) {
+            crescer();
+        }
+        int mascara = chaves.length - 1;
+        int posicao = espalhar(chave) & mascara;
+        while (chaves[posicao] != VAZIO && chaves[posicao] != chave) {
+            posicao = (posicao + 1) & mascara;
+        }
+        if (chaves[posicao] == VAZIO) {
+            chaves[posicao] = chave;
+            tamanho++;
+        }
+        valores[posicao] = valor;
+    }
+    
+    public int getTamanho() {
+        return tamanho;
+    }
+    
+    public boolean estaVazio() {
+        return tamanho == 0;
+    }
+    
+    public void limpar() {
+        java.util.Arrays.fill(chaves, VAZIO);
+        tamanho = 0;
+    }
+    
+    private void crescer() {
+        int[] chavesAntigas = chaves;
+        int[] valoresAntigos = valores;
+        chaves = new int[chavesAntigas.length * 2];
+        valores = new int[chavesAntigas.length * 2];
+        java.util.Arrays.fill(chaves, VAZIO);
+        tamanho = 0;
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (chavesAntigas[i] != VAZIO) {
+                colocar(chavesAntigas[i], valoresAntigos[i]);
+            }
+        }
+    }
+    
+    private static int espalhar(int chave) {
+        int h = chave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,85 @@
+package estruturas;
+
+/**
+ * Implementação de uma Pilha de inteiros primitivos
+ * Usa um array que cresce quando necessário, sem alocar um objeto por elemento
+ */
+public class PilhaInteiros {
+    private static final int CAPACIDADE_INICIAL = 16;
+    
+    private int[] elementos;
+    private int tamanho;
+    private int maiorTamanho;
+    private long totalInseridos;
+    
+    public PilhaInteiros() {
+        this(CAPACIDADE_INICIAL);
+    }
+    
+    public PilhaInteiros(int capacidadeInicial) {
+        this.elementos = new int[Math.max(capacidadeInicial, 1)];
+        this.tamanho = 0;
+    }
+    
+    /**
+     * Adiciona um elemento no topo da pilha (push)
+     */
+    public void empilhar(int valor) {
+        if (tamanho == elementos.length) {
+            int[] novos = new int[elementos.length * 2];
+            System.arraycopy(elementos, 0, novos, 0, tamanho);
+            elementos = novos;
+        }
+        elementos[tamanho++] = valor;
+        totalInseridos++;
+        if (tamanho > maiorTamanho) {
+            maiorTamanho = tamanho;
+        }
+    }
+    
+    /**
+     * Remove e retorna o elemento do topo da pilha (pop)
+     */
+    public int desempilhar() {
+        if (tamanho == 0) {
+            throw new RuntimeException("Pilha vazia");
+        }
+        return elementos[--tamanho];
+    }
+    
+    /**
+     * Retorna o elemento do topo sem removê-lo
+     */
+    public int topo() {
+        if (tamanho == 0) {
+            throw new RuntimeException("Pilha vazia");
+        }
+        return elementos[tamanho - 1];
+    }
+    
+    public boolean estaVazia() {
+        return tamanho == 0;
+    }
+    
+    public int getTamanho() {
+        return tamanho;
+    }
+    
+    /**
+     * Maior número de elementos que a estrutura já teve ao mesmo tempo
+     */
+    public int getMaiorTamanho() {
+        return maiorTamanho;
+    }
+    
+    /**
+     * Total de elementos inseridos desde a criação
+     */
+    public long getTotalInseridos() {
+        return totalInseridos;
+    }
+    
+    public void limpar() {
+        tamanho = 0;
+    }
+}
@@ -0,0 +1,19 @@
+package estruturas;
+
+/**
+ * Enum para o que fazer quando a fila de frames a codificar está cheia
+ */
+public enum PoliticaFilaFrames {
+    BLOQUEAR("Bloquear o preenchimento até haver espaço na fila"),
+    DESCARTAR_MAIS_ANTIGO("Descartar o frame pendente mais antigo");
+    
+    private final String descricao;
+    
+    PoliticaFilaFrames(String descricao) {
+        this.descricao = descricao;
+    }
+    
+    public String getDescricao() {
+        return descricao;
+    }
+}
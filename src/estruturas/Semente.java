@@ -0,0 +1,35 @@
+package estruturas;
+
+import java.awt.Color;
+
+/**
+ * Ponto de partida de um preenchimento: coordenada (x, y) e cor nova da região
+ */
+public class Semente {
+    private final int x;
+    private final int y;
+    private final Color cor;
+    
+    public Semente(int x, int y, Color cor) {
+        this.x = x;
+        this.y = y;
+        this.cor = cor;
+    }
+    
+    public int getX() {
+        return x;
+    }
+    
+    public int getY() {
+        return y;
+    }
+    
+    public Color getCor() {
+        return cor;
+    }
+    
+    @Override
+    public String toString() {
+        return "Semente(" + x + ", " + y + ", " + Integer.toHexString(cor.getRGB()) + ")";
+    }
+}
@@ -5,7 +5,9 @@ package estruturas;
  */
 public enum TipoAlgoritmo {
     FILA_BFS("Fila (BFS - Breadth-First Search)"),
-    PILHA_DFS("Pilha (DFS - Depth-First Search)");
+    PILHA_DFS("Pilha (DFS - Depth-First Search)"),
+    SCANLINE("Scanline (preenchimento por linhas horizontais)"),
+    PARALELO("Paralelo (blocos preenchidos em várias threads)");
     
     private final String descricao;
     
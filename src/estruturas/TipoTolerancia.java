@@ -0,0 +1,19 @@
+package estruturas;
+
+/**
+ * Enum para a forma de medir a diferença entre duas cores no preenchimento com tolerância
+ */
+public enum TipoTolerancia {
+    POR_CANAL("Por canal (nenhum canal pode diferir mais que a tolerância)"),
+    EUCLIDIANA("Euclidiana (distância entre as cores no espaço ARGB)");
+    
+    private final String descricao;
+    
+    TipoTolerancia(String descricao) {
+        this.descricao = descricao;
+    }
+    
+    public String getDescricao() {
+        return descricao;
+    }
+}
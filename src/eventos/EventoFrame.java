@@ -0,0 +1,26 @@
+package eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para cada frame capturado pelo preenchimento
+ * (salvarFrameAtual), com o tempo gasto pelo destino dos frames
+ */
+@Name("floodfill.Frame")
+@Label("Frame capturado")
+@Category("Flood Fill")
+@Description("Um frame enviado ao destino durante o preenchimento")
+public class EventoFrame extends Event {
+    @Label("Número do frame")
+    public int numero;
+    
+    @Label("Bytes alocados")
+    @Description("Alocação na thread do preenchimento durante o envio do frame")
+    @DataAmount
+    public long bytesAlocados;
+}
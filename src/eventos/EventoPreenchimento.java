@@ -0,0 +1,45 @@
+package eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para um preenchimento (executarFloodFill),
+ * do início ao frame final
+ */
+@Name("floodfill.Preenchimento")
+@Label("Preenchimento")
+@Category("Flood Fill")
+@Description("Um preenchimento, com os pixels pintados e o uso da fila ou pilha")
+public class EventoPreenchimento extends Event {
+    @Label("Algoritmo")
+    public String algoritmo;
+    
+    @Label("Largura")
+    public int largura;
+    
+    @Label("Altura")
+    public int altura;
+    
+    @Label("Pixels pintados")
+    public long pixelsPintados;
+    
+    @Label("Inseridos na fila/pilha")
+    @Description("Total de inserções na fila ou pilha do algoritmo (0 quando ele não usa uma)")
+    public long inseridos;
+    
+    @Label("Profundidade máxima")
+    @Description("Maior número de elementos na fila ou pilha ao mesmo tempo")
+    public int profundidadeMaxima;
+    
+    @Label("Frames")
+    public int frames;
+    
+    @Label("Bytes alocados nos frames")
+    @DataAmount
+    public long bytesFrames;
+}
@@ -0,0 +1,27 @@
+package eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para cada quadro escrito no GIF
+ * (GifSequenceWriter ou EscritorGIFParalelo)
+ */
+@Name("floodfill.QuadroGIF")
+@Label("Quadro do GIF")
+@Category("Flood Fill")
+@Description("Codificação e escrita de um quadro do GIF, de writeToSequence até o quadro estar no arquivo")
+public class EventoQuadroGIF extends Event {
+    @Label("Número do quadro")
+    public int numero;
+    
+    @Label("Largura escrita")
+    @Description("Largura da região escrita (a tela inteira ou só o retângulo alterado)")
+    public int largura;
+    
+    @Label("Altura escrita")
+    public int altura;
+}